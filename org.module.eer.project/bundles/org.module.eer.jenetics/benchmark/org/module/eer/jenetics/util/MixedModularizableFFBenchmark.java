@@ -0,0 +1,109 @@
+package org.module.eer.jenetics.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.module.eer.jenetics.split.ff.AverageClassesPerModule;
+import org.module.eer.jenetics.split.ff.BalancedFF;
+import org.module.eer.jenetics.split.ff.CohesiveFF;
+import org.module.eer.jenetics.split.ff.MixedModularizableFF;
+import org.module.eer.jenetics.split.ff.NumberOfClustersFF;
+import org.module.eer.jenetics.split.impl.HierarchicalModuleEERJenetics;
+import org.module.eer.jenetics.utils.Cohesive;
+import org.module.eer.mm.moduleeer.EntityType;
+import org.module.eer.mm.moduleeer.Generalization;
+import org.module.eer.mm.moduleeer.LinkToEntity;
+import org.module.eer.mm.moduleeer.Module;
+import org.module.eer.mm.moduleeer.ModuleeerFactory;
+import org.module.eer.mm.moduleeer.RelationshipType;
+
+import io.jenetics.Genotype;
+
+/*
+ * Micro benchmark of the fused MixedModularizableFF against the composition of CohesiveFF,
+ * NumberOfClustersFF, AverageClassesPerModule and BalancedFF it replaces. It also checks that
+ * both produce the same objective values.
+ * Arguments: [number of entity types] [number of relationship types] [iterations]
+ * It lives in the benchmark source folder, which is compiled in the workspace but not built into the
+ * bundle (build.properties).
+ * */
+public class MixedModularizableFFBenchmark {
+
+	public static void main(String[] args) {
+		int entities = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+		int relationships = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+		Module module = syntheticModule(entities, relationships, new Random(42));
+		int size = module.getModularizableElements().size();
+		@SuppressWarnings("rawtypes")
+		Genotype[] genotypes = new Genotype[256];
+		for (int i = 0; i < genotypes.length; i++)
+			genotypes[i] = HierarchicalModuleEERJenetics.encoding(size).newInstance();
+
+		MixedModularizableFF fused = new MixedModularizableFF(module.getModularizableElements());
+		CohesiveFF cohesiveFF = new CohesiveFF(module.getModularizableElements());
+		for (int i = 0; i < genotypes.length; i++) {
+			double[] expected = composite(cohesiveFF, genotypes[i]);
+			double[] actual = fused.apply(genotypes[i]).data();
+			if (!Arrays.equals(expected, actual))
+				throw new IllegalStateException("Different objectives: " + Arrays.toString(expected) + " " + Arrays.toString(actual));
+		}
+
+		System.out.println("Model Size: " + size);
+		for (int round = 0; round < 3; round++) {
+			double blackhole = 0;
+			long time = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+				blackhole += composite(cohesiveFF, genotypes[i % genotypes.length])[4];
+			long compositeTime = System.nanoTime() - time;
+			time = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+				blackhole += fused.apply(genotypes[i % genotypes.length]).data()[4];
+			long fusedTime = System.nanoTime() - time;
+			System.out.println("Round " + round + ": composite " + (compositeTime / iterations) + " ns/op, fused " +
+					(fusedTime / iterations) + " ns/op, speedup " + String.format("%.2f", (double) compositeTime / fusedTime) +
+					" (" + (blackhole > 0) + ")");
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static double[] composite(CohesiveFF cohesiveFF, Genotype genotype) {
+		Cohesive cohesiveData = cohesiveFF.apply(genotype);
+		return new double[] {
+				cohesiveData.getCohesion(),
+				cohesiveData.getCoupling(),
+				new NumberOfClustersFF().apply(genotype),
+				new AverageClassesPerModule().apply(genotype),
+				new BalancedFF().apply(genotype)
+			};
+	}
+
+	private static Module syntheticModule(int entities, int relationships, Random random) {
+		ModuleeerFactory factory = ModuleeerFactory.eINSTANCE;
+		Module module = factory.createModule();
+		module.setName("Benchmark");
+		EntityType[] entityTypes = new EntityType[entities];
+		for (int i = 0; i < entities; i++) {
+			entityTypes[i] = factory.createEntityType();
+			entityTypes[i].setName("Entity" + i);
+			module.getModularizableElements().add(entityTypes[i]);
+			if (i > 0 && random.nextInt(4) == 0) {
+				Generalization generalization = factory.createGeneralization();
+				generalization.setEntity(entityTypes[random.nextInt(i)]);
+				entityTypes[i].getGeneralizations().add(generalization);
+			}
+		}
+		for (int i = 0; i < relationships; i++) {
+			RelationshipType relationshipType = factory.createRelationshipType();
+			relationshipType.setName("Relationship" + i);
+			for (int j = 0; j < 2; j++) {
+				LinkToEntity link = factory.createLinkToEntity();
+				link.setEntity(entityTypes[random.nextInt(entities)]);
+				relationshipType.getLinksToEntities().add(link);
+			}
+			module.getModularizableElements().add(relationshipType);
+		}
+		return module;
+	}
+}
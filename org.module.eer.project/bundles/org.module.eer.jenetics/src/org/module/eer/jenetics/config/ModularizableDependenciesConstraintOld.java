@@ -3,7 +3,6 @@ package org.module.eer.jenetics.config;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 import io.jenetics.Genotype;
 import io.jenetics.IntegerChromosome;
@@ -11,6 +10,7 @@ import io.jenetics.IntegerGene;
 import io.jenetics.Phenotype;
 import io.jenetics.engine.Constraint;
 import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
 
 /*
  * This class is for repair the generated Chromosome after the execution of the Alterers
@@ -56,7 +56,7 @@ public class ModularizableDependenciesConstraintOld implements Constraint<Intege
 		}
 		if (equalGene == false) {
 			//Random position
-			int randomPosition = new Random().nextInt(dependeciesList.size());
+			int randomPosition = RandomRegistry.random().nextInt(dependeciesList.size());
 			repairChromosome.set(relationShipIndex, IntegerGene.of(
 					repairChromosome.get(dependeciesList.get(randomPosition)).intValue(),
 					repairChromosome.get(dependeciesList.get(randomPosition)).min(),
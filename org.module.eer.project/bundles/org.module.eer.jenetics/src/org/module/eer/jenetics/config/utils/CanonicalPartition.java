@@ -0,0 +1,86 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.Arrays;
+
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Genotype;
+import io.jenetics.PermutationChromosome;
+
+/*
+ * Canonical form of the partition encoded by a genotype. labels[elementId] is the module of the
+ * element, numbered by the first appearance of the module when the elements are visited by id
+ * (restricted growth string), so every reordering of the elements inside of a module or of whole
+ * modules gives the same labels. The hash is computed once; equals compares the full labels.
+ * */
+public final class CanonicalPartition {
+
+	private final int[] labels;
+	private final int numberOfModules;
+	private final int hash;
+
+	private CanonicalPartition(int[] labels, int numberOfModules) {
+		this.labels = labels;
+		this.numberOfModules = numberOfModules;
+		this.hash = Arrays.hashCode(labels);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static CanonicalPartition of(Genotype genotype) {
+		if (GroupingEncoding.isGroupingEncoded(genotype)) {
+			int[] labels = new int[genotype.get(0).length()];
+			int numberOfModules = GroupingEncoding.decode(genotype, labels);
+			return new CanonicalPartition(labels, numberOfModules);
+		}
+		return of((PermutationChromosome<Integer>) genotype.get(0), (BitChromosome) genotype.get(1));
+	}
+
+	public static CanonicalPartition of(PermutationChromosome<Integer> pc, BitChromosome bc) {
+		final int size = pc.length();
+		int[] labels = new int[size];
+		int module = 0;
+		for (int i = 0; i < size; i++) {
+			labels[pc.get(i).alleleIndex()] = module;
+			if (i < bc.length() && bc.get(i).bit() == true)
+				module++;
+		}
+		// Renumber the modules by first appearance
+		int[] canonicalLabel = new int[module + 1];
+		Arrays.fill(canonicalLabel, -1);
+		int numberOfModules = 0;
+		for (int elementId = 0; elementId < size; elementId++) {
+			if (canonicalLabel[labels[elementId]] < 0)
+				canonicalLabel[labels[elementId]] = numberOfModules++;
+			labels[elementId] = canonicalLabel[labels[elementId]];
+		}
+		return new CanonicalPartition(labels, numberOfModules);
+	}
+
+	public int moduleOf(int elementId) {
+		return this.labels[elementId];
+	}
+
+	public int numberOfModules() {
+		return this.numberOfModules;
+	}
+
+	public int size() {
+		return this.labels.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CanonicalPartition))
+			return false;
+		CanonicalPartition other = (CanonicalPartition) obj;
+		return this.hash == other.hash && Arrays.equals(this.labels, other.labels);
+	}
+}
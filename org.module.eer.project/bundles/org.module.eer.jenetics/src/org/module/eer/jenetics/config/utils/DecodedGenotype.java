@@ -0,0 +1,80 @@
+package org.module.eer.jenetics.config.utils;
+
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Genotype;
+import io.jenetics.PermutationChromosome;
+
+/*
+ * Genotype (PermutationChromosome + BitChromosome of separators) decoded in one linear pass.
+ * moduleOf[elementId] is the module of the element and position[elementId] its position
+ * in the PermutationChromosome, so "same module?" is answered with an array lookup.
+ * */
+public final class DecodedGenotype {
+
+	private final int[] moduleOf;
+	private final int[] position;
+	private final int numberOfModules;
+
+	private DecodedGenotype(int[] moduleOf, int[] position, int numberOfModules) {
+		this.moduleOf = moduleOf;
+		this.position = position;
+		this.numberOfModules = numberOfModules;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static DecodedGenotype of(Genotype genotype) {
+		if (GroupingEncoding.isGroupingEncoded(genotype)) {
+			// The grouping encoding has no positions, the position of an element is its id
+			int[] moduleOf = new int[genotype.get(0).length()];
+			int numberOfModules = GroupingEncoding.decode(genotype, moduleOf);
+			int[] position = new int[moduleOf.length];
+			for (int i = 0; i < position.length; i++)
+				position[i] = i;
+			return new DecodedGenotype(moduleOf, position, numberOfModules);
+		}
+		return of((PermutationChromosome<Integer>) genotype.get(0), (BitChromosome) genotype.get(1));
+	}
+
+	public static DecodedGenotype of(PermutationChromosome<Integer> pc, BitChromosome bc) {
+		final int size = pc.length();
+		int[] moduleOf = new int[size];
+		int[] position = new int[size];
+		int currentModule = 0;
+		for (int i = 0; i < size; i++) {
+			int elementId = pc.get(i).alleleIndex();
+			moduleOf[elementId] = currentModule;
+			position[elementId] = i;
+			if (i < bc.length() && bc.get(i).bit() == true)
+				currentModule++;
+		}
+		return new DecodedGenotype(moduleOf, position, currentModule + 1);
+	}
+
+	public boolean belongsToTheSameModule(int elementId, int otherElementId) {
+		return this.moduleOf[elementId] == this.moduleOf[otherElementId];
+	}
+
+	public int moduleOf(int elementId) {
+		return this.moduleOf[elementId];
+	}
+
+	// Moves the element to the module of the other element (used while repairing,
+	// positions and number of modules are not updated)
+	public void moveToModuleOf(int elementId, int otherElementId) {
+		this.moduleOf[elementId] = this.moduleOf[otherElementId];
+	}
+
+	public int positionOf(int elementId) {
+		return this.position[elementId];
+	}
+
+	public int numberOfModules() {
+		return this.numberOfModules;
+	}
+
+	public int size() {
+		return this.moduleOf.length;
+	}
+}
@@ -0,0 +1,124 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.EList;
+import org.module.eer.jenetics.split.constraint.BasicConstraint;
+import org.module.eer.mm.moduleeer.EntityType;
+import org.module.eer.mm.moduleeer.ModularizableElement;
+import org.module.eer.mm.moduleeer.RelationshipType;
+import org.module.eer.mm.moduleeer.procedure.AccessElement;
+import org.module.eer.mm.moduleeer.procedure.Procedure;
+
+/*
+ * Dependency constraints of the modularizable elements of a model, one row per RelationshipType or
+ * Procedure: elementAt(c) is the constrained element and dependenciesAt(c) the elements it depends
+ * on (a RelationshipType keeps -1 for an entity outside of the list, a Procedure drops it). The ids
+ * are looked up in an identity index of the elements, so the table is built in time linear in the
+ * size of the model. The table is immutable and it is built once per model, every run of the model
+ * can share it.
+ * */
+public final class DependencyTable {
+
+	private final int[] elements;
+	private final int[][] dependencies;
+	// The same rows as BasicConstraints (unmodifiable)
+	private final List<BasicConstraint> constraints;
+
+	private DependencyTable(int[] elements, int[][] dependencies) {
+		this.elements = elements;
+		this.dependencies = dependencies;
+		List<BasicConstraint> constraints = new ArrayList<BasicConstraint>(elements.length);
+		for (int c = 0; c < elements.length; c++) {
+			List<Integer> related = new ArrayList<Integer>(dependencies[c].length);
+			for (int elementId : dependencies[c])
+				related.add(elementId);
+			constraints.add(new BasicConstraint(elements[c], Collections.unmodifiableList(related)));
+		}
+		this.constraints = Collections.unmodifiableList(constraints);
+	}
+
+	public static DependencyTable of(EList<ModularizableElement> listOfElements) {
+		return of(listOfElements, ModularizableReferenceIndex.elementIds(listOfElements));
+	}
+
+	static DependencyTable of(EList<ModularizableElement> listOfElements, Map<ModularizableElement, Integer> elementIds) {
+		final int size = listOfElements.size();
+		int numberOfConstraints = 0;
+		for (int i = 0; i < size; i++) {
+			ModularizableElement element = listOfElements.get(i);
+			if (element instanceof RelationshipType || element instanceof Procedure)
+				numberOfConstraints++;
+		}
+		int[] elements = new int[numberOfConstraints];
+		int[][] dependencies = new int[numberOfConstraints][];
+		int c = 0;
+		for (int i = 0; i < size; i++) {
+			ModularizableElement element = listOfElements.get(i);
+			if (element instanceof RelationshipType) {
+				elements[c] = i;
+				dependencies[c++] = relationshipTypeDependency((RelationshipType) element, elementIds);
+			} else if (element instanceof Procedure) {
+				elements[c] = i;
+				dependencies[c++] = procedureDependency((Procedure) element, elementIds);
+			}
+		}
+		return new DependencyTable(elements, dependencies);
+	}
+
+	/*
+	 * Both entities when both have more links, otherwise the entity with a single link (this
+	 * RelationshipType), the source first
+	 * */
+	private static int[] relationshipTypeDependency(RelationshipType relationshipType,
+			Map<ModularizableElement, Integer> elementIds) {
+		final EntityType source = relationshipType.getLinksToEntities().get(0).getEntity();
+		final EntityType target = relationshipType.getLinksToEntities().get(1).getEntity();
+		if (source.getLinks().size() > 1 && target.getLinks().size() > 1)
+			return new int[] { idOf(source, elementIds), idOf(target, elementIds) };
+		else if (source.getLinks().size() == 1)
+			return new int[] { idOf(source, elementIds) };
+		else if (target.getLinks().size() == 1)
+			return new int[] { idOf(target, elementIds) };
+		return new int[0];
+	}
+
+	private static int[] procedureDependency(Procedure procedure, Map<ModularizableElement, Integer> elementIds) {
+		int[] related = new int[procedure.getAccessElements().size()];
+		int length = 0;
+		for (AccessElement accessElement : procedure.getAccessElements()) {
+			int elementId = idOf(accessElement.getEntity(), elementIds);
+			if (elementId != -1)
+				related[length++] = elementId;
+		}
+		return length == related.length ? related : Arrays.copyOf(related, length);
+	}
+
+	private static int idOf(Object element, Map<ModularizableElement, Integer> elementIds) {
+		Integer elementId = elementIds.get(element);
+		return elementId == null ? -1 : elementId;
+	}
+
+	// Number of constraints
+	public int size() {
+		return this.elements.length;
+	}
+
+	// Constrained element of the constraint
+	public int elementAt(int constraint) {
+		return this.elements[constraint];
+	}
+
+	// Elements the constrained element depends on (shared, not to be modified)
+	public int[] dependenciesAt(int constraint) {
+		return this.dependencies[constraint];
+	}
+
+	public List<BasicConstraint> constraints() {
+		return this.constraints;
+	}
+}
@@ -0,0 +1,45 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.Arrays;
+
+/*
+ * Weight of every kind of edge of a weighted ModuleGraph. A kind with weight 0 is left out of the
+ * graph. The weights are immutable and they are read once, when the graph is built.
+ * */
+public final class EdgeWeights {
+
+	// Kinds of edges
+	public static final byte GENERALIZATION = 0;
+	public static final byte RELATION = 1;
+	public static final byte AGGREGATION = 2;
+	public static final byte PROCEDURE_ACCESS = 3;
+
+	private final float[] weights;
+
+	private EdgeWeights(float[] weights) {
+		for (float weight : weights) {
+			if (!(weight >= 0) || Float.isInfinite(weight))
+				throw new IllegalArgumentException("Edge weights must be finite and non negative: " + Arrays.toString(weights));
+		}
+		this.weights = weights;
+	}
+
+	// Every kind of edge weighs 1, the same objective values as the unweighted graph
+	public static EdgeWeights unit() {
+		return of(1, 1, 1, 1);
+	}
+
+	public static EdgeWeights of(float generalization, float relation, float aggregation, float procedureAccess) {
+		return new EdgeWeights(new float[] { generalization, relation, aggregation, procedureAccess });
+	}
+
+	public float weightOf(byte kind) {
+		return this.weights[kind];
+	}
+
+	@Override
+	public String toString() {
+		return "generalization = " + this.weights[GENERALIZATION] + ", relation = " + this.weights[RELATION] +
+				", aggregation = " + this.weights[AGGREGATION] + ", procedure access = " + this.weights[PROCEDURE_ACCESS];
+	}
+}
@@ -0,0 +1,199 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.EList;
+import org.module.eer.mm.moduleeer.Aggregation;
+import org.module.eer.mm.moduleeer.EntityType;
+import org.module.eer.mm.moduleeer.Generalization;
+import org.module.eer.mm.moduleeer.LinkToEntity;
+import org.module.eer.mm.moduleeer.ModularizableElement;
+import org.module.eer.mm.moduleeer.Module;
+import org.module.eer.mm.moduleeer.RelationshipType;
+import org.module.eer.mm.moduleeer.procedure.AccessElement;
+import org.module.eer.mm.moduleeer.procedure.Procedure;
+
+/*
+ * Compressed sparse row (CSR) index of the references among the modularizable elements of a Module.
+ * The references of the element with id i are stored in targets[offsets[i]..offsets[i+1]) and
+ * the kind of every reference in kinds[]. The id of an element is its index in the list of
+ * modularizable elements, references to elements outside of the list are stored as OUTSIDE.
+ * The index is immutable and it is compiled once per split.
+ * */
+public final class ModularizableReferenceIndex {
+
+	public static final int OUTSIDE = -1;
+
+	// Kinds of references
+	public static final byte GENERALIZATION = 0;
+	public static final byte LINK_TO_ENTITY = 1;
+	public static final byte ASSOCIATION = 2;
+	public static final byte AGGREGATION = 3;
+	public static final byte GENERALIZES = 4;
+	public static final byte ACCESS = 5;
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final byte[] kinds;
+
+	private ModularizableReferenceIndex(int[] offsets, int[] targets, byte[] kinds) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.kinds = kinds;
+	}
+
+	public static ModularizableReferenceIndex of(Module module) {
+		return of(module.getModularizableElements());
+	}
+
+	public static ModularizableReferenceIndex of(EList<ModularizableElement> modularizableElements) {
+		return of(modularizableElements, elementIds(modularizableElements));
+	}
+
+	static ModularizableReferenceIndex of(EList<ModularizableElement> modularizableElements,
+			Map<ModularizableElement, Integer> elementIds) {
+		final int size = modularizableElements.size();
+		int[] offsets = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			offsets[i + 1] = offsets[i] + numberOfReferences(modularizableElements.get(i));
+		}
+		int[] targets = new int[offsets[size]];
+		byte[] kinds = new byte[offsets[size]];
+		for (int i = 0; i < size; i++) {
+			compileReferences(modularizableElements.get(i), offsets[i], elementIds, targets, kinds);
+		}
+		return new ModularizableReferenceIndex(offsets, targets, kinds);
+	}
+
+	// Id of every element (identity), the first index as indexOf
+	static Map<ModularizableElement, Integer> elementIds(EList<ModularizableElement> modularizableElements) {
+		final int size = modularizableElements.size();
+		Map<ModularizableElement, Integer> elementIds = new IdentityHashMap<ModularizableElement, Integer>(size);
+		for (int i = 0; i < size; i++) {
+			elementIds.putIfAbsent(modularizableElements.get(i), i);
+		}
+		return elementIds;
+	}
+
+	private static int numberOfReferences(ModularizableElement element) {
+		if (element instanceof EntityType)
+			return ((EntityType) element).getGeneralizations().size();
+		else if (element instanceof RelationshipType) {
+			RelationshipType relationshipType = (RelationshipType) element;
+			return relationshipType.getLinksToEntities().size() + relationshipType.getAssociations().size() +
+					relationshipType.getAggregations().size() + relationshipType.getGeneralizes().size();
+		} else if (element instanceof Procedure)
+			return ((Procedure) element).getAccessElements().size();
+		return 0;
+	}
+
+	private static void compileReferences(ModularizableElement element, int offset,
+			Map<ModularizableElement, Integer> elementIds, int[] targets, byte[] kinds) {
+		int r = offset;
+		//Generalizes
+		if (element instanceof EntityType) {
+			for (Generalization generalization : ((EntityType) element).getGeneralizations())
+				r = put(r, generalization.getEntity(), GENERALIZATION, elementIds, targets, kinds);
+		}
+		//RelationshipType
+		else if (element instanceof RelationshipType) {
+			RelationshipType relationshipType = (RelationshipType) element;
+			for (LinkToEntity linkToEntity : relationshipType.getLinksToEntities())
+				r = put(r, linkToEntity.getEntity(), LINK_TO_ENTITY, elementIds, targets, kinds);
+			for (LinkToEntity linkToEntity : relationshipType.getAssociations())
+				r = put(r, linkToEntity.getEntity(), ASSOCIATION, elementIds, targets, kinds);
+			for (Aggregation aggregation : relationshipType.getAggregations())
+				r = put(r, aggregation.getTo(), AGGREGATION, elementIds, targets, kinds);
+			for (RelationshipType generalizeType : relationshipType.getGeneralizes())
+				r = put(r, generalizeType, GENERALIZES, elementIds, targets, kinds);
+		}
+		//Procedure
+		else if (element instanceof Procedure) {
+			for (AccessElement accessElement : ((Procedure) element).getAccessElements())
+				r = put(r, accessElement.getEntity(), ACCESS, elementIds, targets, kinds);
+		}
+	}
+
+	private static int put(int r, Object target, byte kind, Map<ModularizableElement, Integer> elementIds,
+			int[] targets, byte[] kinds) {
+		Integer targetId = elementIds.get(target);
+		targets[r] = targetId == null ? OUTSIDE : targetId;
+		kinds[r] = kind;
+		return r + 1;
+	}
+
+	// Number of indexed modularizable elements
+	public int size() {
+		return this.offsets.length - 1;
+	}
+
+	// Total number of references
+	public int numberOfReferences() {
+		return this.targets.length;
+	}
+
+	// First reference of the element
+	public int begin(int elementId) {
+		return this.offsets[elementId];
+	}
+
+	// End (exclusive) of the references of the element
+	public int end(int elementId) {
+		return this.offsets[elementId + 1];
+	}
+
+	public int target(int reference) {
+		return this.targets[reference];
+	}
+
+	public byte kind(int reference) {
+		return this.kinds[reference];
+	}
+
+	/*
+	 * Undirected multigraph with one edge per reference between two different elements of the
+	 * index, the references that can be cohesive. References to elements outside of the list and
+	 * self references are left out (they are always coupling).
+	 * */
+	public ModuleGraph referenceGraph() {
+		ModuleGraph.Builder builder = ModuleGraph.builder(size());
+		for (int elementId = 0; elementId < size(); elementId++) {
+			for (int r = begin(elementId); r < end(elementId); r++) {
+				if (this.targets[r] != OUTSIDE && this.targets[r] != elementId)
+					builder.addEdge(elementId, this.targets[r]);
+			}
+		}
+		return builder.buildMultigraph();
+	}
+
+	/*
+	 * Weighted graph of the references among the elements of the index. Links to entities and
+	 * associations are relations, generalizations of entity types and of relationship types are
+	 * generalizations.
+	 * */
+	public ModuleGraph weightedGraph(EdgeWeights edgeWeights) {
+		ModuleGraph.Builder builder = ModuleGraph.builder(size());
+		for (int elementId = 0; elementId < size(); elementId++) {
+			for (int r = begin(elementId); r < end(elementId); r++) {
+				if (this.targets[r] != OUTSIDE && this.targets[r] != elementId)
+					builder.addEdge(elementId, this.targets[r], edgeKind(this.kinds[r]));
+			}
+		}
+		return builder.build(edgeWeights);
+	}
+
+	private static byte edgeKind(byte kind) {
+		switch (kind) {
+		case GENERALIZATION:
+		case GENERALIZES:
+			return EdgeWeights.GENERALIZATION;
+		case AGGREGATION:
+			return EdgeWeights.AGGREGATION;
+		case ACCESS:
+			return EdgeWeights.PROCEDURE_ACCESS;
+		default:
+			return EdgeWeights.RELATION;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.BitSet;
+
+/*
+ * Array-backed partition used while repairing a genotype. moduleOf[elementId] is the module of every
+ * element and sizeOf[module] its number of elements, the modules are numbered in chromosome order.
+ * Moving an element to another module is O(1), nothing is shifted: the PermutationChromosome order
+ * and the separators are only materialized at the end. The modules keep their order and the elements
+ * of a module keep their relative order in the chromosome (a moved element keeps its old place in
+ * that order), empty modules disappear.
+ * */
+public final class ModuleAssignment {
+
+	// Chromosome order the assignment was built from
+	private final int[] elementAt;
+	private final int[] moduleOf;
+	private final int[] sizeOf;
+	private int numberOfModules;
+	private int moves = 0;
+
+	private ModuleAssignment(int[] elementAt, int[] moduleOf, int[] sizeOf, int numberOfModules) {
+		this.elementAt = elementAt;
+		this.moduleOf = moduleOf;
+		this.sizeOf = sizeOf;
+		this.numberOfModules = numberOfModules;
+	}
+
+	/*
+	 * elementAt[position] is the element id at every position and bit i of the separators is set
+	 * when a module ends after the position i
+	 * */
+	public static ModuleAssignment of(int[] elementAt, BitSet separators) {
+		final int size = elementAt.length;
+		int[] moduleOf = new int[size];
+		int[] sizeOf = new int[size];
+		int currentModule = 0;
+		for (int i = 0; i < size; i++) {
+			moduleOf[elementAt[i]] = currentModule;
+			sizeOf[currentModule]++;
+			if (i < size - 1 && separators.get(i) == true)
+				currentModule++;
+		}
+		return new ModuleAssignment(elementAt.clone(), moduleOf, sizeOf, currentModule + 1);
+	}
+
+	// Number of elements
+	public int size() {
+		return this.moduleOf.length;
+	}
+
+	public int moduleOf(int elementId) {
+		return this.moduleOf[elementId];
+	}
+
+	public boolean belongsToTheSameModule(int elementId, int otherElementId) {
+		return this.moduleOf[elementId] == this.moduleOf[otherElementId];
+	}
+
+	// Number of elements in the module of the element
+	public int sizeOfModuleOf(int elementId) {
+		return this.sizeOf[this.moduleOf[elementId]];
+	}
+
+	// Number of non empty modules
+	public int numberOfModules() {
+		return this.numberOfModules;
+	}
+
+	// Number of elements moved since the assignment was built
+	public int moves() {
+		return this.moves;
+	}
+
+	public void moveToModuleOf(int elementId, int otherElementId) {
+		moveToModule(elementId, this.moduleOf[otherElementId]);
+	}
+
+	// The module can be empty (see emptyModule()), it takes its place in the module order
+	public void moveToModule(int elementId, int toModule) {
+		final int fromModule = this.moduleOf[elementId];
+		if (fromModule == toModule)
+			return;
+		if (--this.sizeOf[fromModule] == 0)
+			this.numberOfModules--;
+		if (this.sizeOf[toModule]++ == 0)
+			this.numberOfModules++;
+		this.moduleOf[elementId] = toModule;
+		this.moves++;
+	}
+
+	// First empty module, -1 when every element is alone in its module
+	public int emptyModule() {
+		for (int module = 0; module < this.sizeOf.length; module++) {
+			if (this.sizeOf[module] == 0)
+				return module;
+		}
+		return -1;
+	}
+
+	/*
+	 * Writes the chromosome order and the separators of the assignment, a stable counting sort of
+	 * the original order by module
+	 * */
+	public void materialize(int[] elementAt, BitSet separators) {
+		final int size = this.elementAt.length;
+		int[] next = new int[size];
+		int position = 0;
+		separators.clear();
+		for (int module = 0; module < size; module++) {
+			if (this.sizeOf[module] == 0)
+				continue;
+			next[module] = position;
+			position += this.sizeOf[module];
+			if (position < size)
+				separators.set(position - 1);
+		}
+		for (int i = 0; i < size; i++) {
+			int elementId = this.elementAt[i];
+			elementAt[next[this.moduleOf[elementId]]++] = elementId;
+		}
+	}
+}
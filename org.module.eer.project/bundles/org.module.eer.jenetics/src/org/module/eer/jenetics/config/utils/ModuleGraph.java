@@ -0,0 +1,250 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.Arrays;
+
+/*
+ * Sparse undirected graph among the modularizable elements. The edges are stored once as an edge
+ * list (from[e] < to[e]) and the neighbours of every node in compressed sparse row (CSR) form,
+ * neighbours of the node i in neighbours[offsets[i]..offsets[i+1]). Repeated edges and self loops
+ * are dropped, the same edges of a symmetric boolean matrix (a multigraph keeps the repeated edges).
+ * A weighted graph also keeps a float weight per edge (and per neighbour), the weight of the
+ * strongest kind of edge between the two nodes (see EdgeWeights). An unweighted edge weighs 1.
+ * The graph is immutable, it is built once per model and the total number (and weight) of the
+ * edges and the largest weight are cached.
+ * */
+public final class ModuleGraph {
+
+	private final int size;
+	private final int[] from;
+	private final int[] to;
+	private final int[] offsets;
+	private final int[] neighbours;
+	// Weight of every edge and of every neighbour, null when the graph is unweighted
+	private final float[] weights;
+	private final float[] neighbourWeights;
+	private final double totalWeight;
+	private final float maxWeight;
+	private volatile PackedAdjacency packedAdjacency;
+
+	private ModuleGraph(int size, int[] from, int[] to, float[] weights) {
+		this.size = size;
+		this.from = from;
+		this.to = to;
+		this.weights = weights;
+		this.offsets = new int[size + 1];
+		for (int e = 0; e < from.length; e++) {
+			this.offsets[from[e] + 1]++;
+			this.offsets[to[e] + 1]++;
+		}
+		for (int i = 0; i < size; i++)
+			this.offsets[i + 1] += this.offsets[i];
+		this.neighbours = new int[this.offsets[size]];
+		this.neighbourWeights = weights == null ? null : new float[this.neighbours.length];
+		int[] next = Arrays.copyOf(this.offsets, size);
+		double totalWeight = 0;
+		float maxWeight = 0;
+		for (int e = 0; e < from.length; e++) {
+			if (weights != null) {
+				this.neighbourWeights[next[from[e]]] = weights[e];
+				this.neighbourWeights[next[to[e]]] = weights[e];
+				totalWeight += weights[e];
+				maxWeight = Math.max(maxWeight, weights[e]);
+			}
+			this.neighbours[next[from[e]]++] = to[e];
+			this.neighbours[next[to[e]]++] = from[e];
+		}
+		this.totalWeight = weights == null ? from.length : totalWeight;
+		this.maxWeight = weights == null ? 1 : maxWeight;
+	}
+
+	public static Builder builder(int size) {
+		return new Builder(size);
+	}
+
+	public static ModuleGraph of(boolean[][] edges) {
+		Builder builder = builder(edges.length);
+		for (int i = 0; i < edges.length; i++) {
+			for (int j = i + 1; j < edges.length; j++) {
+				if (edges[i][j] || edges[j][i])
+					builder.addEdge(i, j);
+			}
+		}
+		return builder.build();
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int numberOfEdges() {
+		return this.from.length;
+	}
+
+	// Smaller end of the edge
+	public int from(int edge) {
+		return this.from[edge];
+	}
+
+	// Greater end of the edge
+	public int to(int edge) {
+		return this.to[edge];
+	}
+
+	// First neighbour of the node
+	public int begin(int node) {
+		return this.offsets[node];
+	}
+
+	// End (exclusive) of the neighbours of the node
+	public int end(int node) {
+		return this.offsets[node + 1];
+	}
+
+	public int neighbour(int index) {
+		return this.neighbours[index];
+	}
+
+	public int degree(int node) {
+		return this.offsets[node + 1] - this.offsets[node];
+	}
+
+	public boolean isWeighted() {
+		return this.weights != null;
+	}
+
+	public float weight(int edge) {
+		return this.weights == null ? 1 : this.weights[edge];
+	}
+
+	// Weight of the edge to the neighbour at the index
+	public float neighbourWeight(int index) {
+		return this.neighbourWeights == null ? 1 : this.neighbourWeights[index];
+	}
+
+	// Sum of the weights of all the edges, the number of edges when the graph is unweighted
+	public double totalWeight() {
+		return this.totalWeight;
+	}
+
+	// Weight of the strongest edge, 1 when the graph is unweighted (0 for a weighted graph without edges)
+	public float maxWeight() {
+		return this.maxWeight;
+	}
+
+	/*
+	 * Weight of the edges among the elements[from..to), all of them set in the membership bitset
+	 * (the same membership bitsets of PackedAdjacency). Every edge is seen from both ends.
+	 * */
+	public double weightWithin(int[] elements, int from, int to, long[] membership) {
+		double weight = 0;
+		for (int i = from; i < to; i++) {
+			for (int n = this.offsets[elements[i]]; n < this.offsets[elements[i] + 1]; n++) {
+				int neighbour = this.neighbours[n];
+				if ((membership[neighbour >>> 6] & (1L << neighbour)) != 0)
+					weight += neighbourWeight(n);
+			}
+		}
+		return weight / 2;
+	}
+
+	// Bit-packed adjacency of the same graph (repeated edges are packed once, weights are dropped), built on first use
+	public PackedAdjacency packedAdjacency() {
+		PackedAdjacency adjacency = this.packedAdjacency;
+		if (adjacency == null) {
+			adjacency = PackedAdjacency.of(this);
+			this.packedAdjacency = adjacency;
+		}
+		return adjacency;
+	}
+
+	public static final class Builder {
+
+		private final int size;
+		// Edges encoded as (smaller end << 32 | greater end) and the kind of every edge
+		private long[] edges = new long[16];
+		private byte[] kinds = new byte[16];
+		private int numberOfEdges;
+
+		private Builder(int size) {
+			this.size = size;
+		}
+
+		public Builder addEdge(int a, int b) {
+			return addEdge(a, b, EdgeWeights.RELATION);
+		}
+
+		// The kind is only read by build(EdgeWeights)
+		public Builder addEdge(int a, int b, byte kind) {
+			if (a < 0 || b < 0 || a >= this.size || b >= this.size)
+				throw new IndexOutOfBoundsException("Edge (" + a + ", " + b + ") out of a graph of size " + this.size);
+			if (a == b)
+				return this;
+			if (this.numberOfEdges == this.edges.length) {
+				this.edges = Arrays.copyOf(this.edges, this.edges.length * 2);
+				this.kinds = Arrays.copyOf(this.kinds, this.kinds.length * 2);
+			}
+			this.kinds[this.numberOfEdges] = kind;
+			this.edges[this.numberOfEdges++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+			return this;
+		}
+
+		public ModuleGraph build() {
+			return build(false);
+		}
+
+		// Keeps the repeated edges, every one of them is counted
+		public ModuleGraph buildMultigraph() {
+			return build(true);
+		}
+
+		private ModuleGraph build(boolean keepRepeatedEdges) {
+			long[] sorted = Arrays.copyOf(this.edges, this.numberOfEdges);
+			Arrays.sort(sorted);
+			int unique = 0;
+			for (int e = 0; e < sorted.length; e++) {
+				if (keepRepeatedEdges || e == 0 || sorted[e] != sorted[e - 1])
+					sorted[unique++] = sorted[e];
+			}
+			int[] from = new int[unique];
+			int[] to = new int[unique];
+			for (int e = 0; e < unique; e++) {
+				from[e] = (int) (sorted[e] >>> 32);
+				to[e] = (int) sorted[e];
+			}
+			return new ModuleGraph(this.size, from, to, null);
+		}
+
+		/*
+		 * Weighted graph, the weight of two nodes joined by edges of several kinds is the weight
+		 * of the strongest kind. Edges that weigh 0 are left out.
+		 * */
+		public ModuleGraph build(EdgeWeights edgeWeights) {
+			long[] sorted = Arrays.copyOf(this.edges, this.numberOfEdges);
+			Arrays.sort(sorted);
+			int unique = 0;
+			for (int e = 0; e < sorted.length; e++) {
+				if (e == 0 || sorted[e] != sorted[e - 1])
+					sorted[unique++] = sorted[e];
+			}
+			float[] weights = new float[unique];
+			for (int e = 0; e < this.numberOfEdges; e++) {
+				int index = Arrays.binarySearch(sorted, 0, unique, this.edges[e]);
+				weights[index] = Math.max(weights[index], edgeWeights.weightOf(this.kinds[e]));
+			}
+			int weighted = 0;
+			for (int e = 0; e < unique; e++) {
+				if (weights[e] > 0) {
+					sorted[weighted] = sorted[e];
+					weights[weighted++] = weights[e];
+				}
+			}
+			int[] from = new int[weighted];
+			int[] to = new int[weighted];
+			for (int e = 0; e < weighted; e++) {
+				from[e] = (int) (sorted[e] >>> 32);
+				to[e] = (int) sorted[e];
+			}
+			return new ModuleGraph(this.size, from, to, Arrays.copyOf(weights, weighted));
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package org.module.eer.jenetics.config.utils;
+
+/*
+ * Undirected adjacency of the modularizable elements packed in one bitset row of longs per node:
+ * bit j of the row i is set when the elements i and j are connected. Self loops are not stored
+ * (GraphCohesion and GraphCoupling only count pairs of different elements), so the connections
+ * inside of a module are counted with AND + Long.bitCount over a membership bitset of the module.
+ * The adjacency is immutable and it is built once per ModuleGraph.
+ * */
+public final class PackedAdjacency {
+
+	private final int size;
+	private final int words;
+	// Row i is stored in rows[i * words .. (i + 1) * words)
+	private final long[] rows;
+	private final int numberOfEdges;
+
+	private PackedAdjacency(int size, int words, long[] rows) {
+		this.size = size;
+		this.words = words;
+		this.rows = rows;
+		int degrees = 0;
+		for (int w = 0; w < rows.length; w++)
+			degrees += Long.bitCount(rows[w]);
+		this.numberOfEdges = degrees / 2;
+	}
+
+	/*
+	 * The matrix is read as undirected, (i, j) is an edge when edges[i][j] or edges[j][i]
+	 * */
+	public static PackedAdjacency of(boolean[][] edges) {
+		return ModuleGraph.of(edges).packedAdjacency();
+	}
+
+	static PackedAdjacency of(ModuleGraph graph) {
+		final int size = graph.size();
+		final int words = wordsFor(size);
+		long[] rows = new long[size * words];
+		for (int e = 0; e < graph.numberOfEdges(); e++) {
+			int i = graph.from(e);
+			int j = graph.to(e);
+			rows[i * words + (j >>> 6)] |= 1L << j;
+			rows[j * words + (i >>> 6)] |= 1L << i;
+		}
+		return new PackedAdjacency(size, words, rows);
+	}
+
+	// Number of longs needed by a bitset of size bits
+	public static int wordsFor(int size) {
+		return (size + 63) >>> 6;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	// Number of longs of every row (and of the membership bitsets)
+	public int words() {
+		return this.words;
+	}
+
+	// Number of undirected edges between different elements
+	public int numberOfEdges() {
+		return this.numberOfEdges;
+	}
+
+	public boolean isConnected(int i, int j) {
+		return (this.rows[i * this.words + (j >>> 6)] & (1L << j)) != 0;
+	}
+
+	// Number of elements of the membership bitset connected to the element
+	public int connectionsWith(int elementId, long[] membership) {
+		final int offset = elementId * this.words;
+		int connections = 0;
+		for (int w = 0; w < this.words; w++)
+			connections += Long.bitCount(this.rows[offset + w] & membership[w]);
+		return connections;
+	}
+
+	// Number of edges among the elements[from..to), all of them set in the membership bitset
+	public int connectionsWithin(int[] elements, int from, int to, long[] membership) {
+		int degrees = 0;
+		for (int i = from; i < to; i++)
+			degrees += connectionsWith(elements[i], membership);
+		return degrees / 2;
+	}
+}
@@ -0,0 +1,222 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.BitSet;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Chromosome;
+import io.jenetics.PermutationChromosome;
+
+/*
+ * Decoded genotype that keeps, for every module, its size and the number of edges of a ModuleGraph
+ * inside of it. A module is labelled with the position where it starts in the PermutationChromosome,
+ * so a swap of two elements or a flip of a separator only relabels the touched elements and updates
+ * the counters through their incident edges instead of decoding and counting everything again.
+ * The state remembers the chromosomes it was built from, so the state of a parent can be found
+ * by the chromosome its child still shares with it.
+ * */
+public final class PartitionState {
+
+	private final ModuleGraph graph;
+	private final int[] elementAt;
+	private final int[] positionOf;
+	// Bit i is set when there is a separator after the position i
+	private final BitSet separators;
+	private final int[] labelOf;
+	private final int[] sizeOf;
+	private final int[] intraEdgesOf;
+	private int intraEdges;
+	private int numberOfModules;
+	@SuppressWarnings("rawtypes")
+	private Chromosome permutation;
+	@SuppressWarnings("rawtypes")
+	private Chromosome bits;
+
+	private PartitionState(ModuleGraph graph, int[] elementAt, int[] positionOf, BitSet separators, int[] labelOf,
+			int[] sizeOf, int[] intraEdgesOf, int intraEdges, int numberOfModules) {
+		this.graph = graph;
+		this.elementAt = elementAt;
+		this.positionOf = positionOf;
+		this.separators = separators;
+		this.labelOf = labelOf;
+		this.sizeOf = sizeOf;
+		this.intraEdgesOf = intraEdgesOf;
+		this.intraEdges = intraEdges;
+		this.numberOfModules = numberOfModules;
+	}
+
+	public static PartitionState of(ModuleGraph graph, PermutationChromosome<Integer> pc, BitChromosome bc) {
+		final int size = pc.length();
+		int[] elementAt = new int[size];
+		int[] positionOf = new int[size];
+		BitSet separators = new BitSet(size);
+		int[] labelOf = new int[size];
+		int[] sizeOf = new int[size];
+		int label = 0;
+		int numberOfModules = 1;
+		for (int i = 0; i < size; i++) {
+			int elementId = pc.get(i).alleleIndex();
+			elementAt[i] = elementId;
+			positionOf[elementId] = i;
+			labelOf[elementId] = label;
+			sizeOf[label]++;
+			if (i < bc.length() && bc.get(i).bit() == true) {
+				separators.set(i);
+				label = i + 1;
+				numberOfModules++;
+			}
+		}
+		int[] intraEdgesOf = new int[size];
+		int intraEdges = 0;
+		for (int e = 0; e < graph.numberOfEdges(); e++) {
+			int moduleLabel = labelOf[graph.from(e)];
+			if (moduleLabel == labelOf[graph.to(e)]) {
+				intraEdgesOf[moduleLabel]++;
+				intraEdges++;
+			}
+		}
+		PartitionState state = new PartitionState(graph, elementAt, positionOf, separators, labelOf, sizeOf,
+				intraEdgesOf, intraEdges, numberOfModules);
+		state.permutation = pc;
+		state.bits = bc;
+		return state;
+	}
+
+	public PartitionState copy() {
+		PartitionState state = new PartitionState(this.graph, this.elementAt.clone(), this.positionOf.clone(),
+				(BitSet) this.separators.clone(), this.labelOf.clone(), this.sizeOf.clone(), this.intraEdgesOf.clone(),
+				this.intraEdges, this.numberOfModules);
+		state.permutation = this.permutation;
+		state.bits = this.bits;
+		return state;
+	}
+
+	/*
+	 * Number of swaps and separator flips that turn this state into the given chromosomes,
+	 * or -1 when there are more than maxChanges
+	 * */
+	public int changesTo(PermutationChromosome<Integer> pc, BitChromosome bc, int maxChanges) {
+		int changes = 0;
+		if (pc != this.permutation) {
+			for (int i = 0; i < this.elementAt.length && changes <= maxChanges; i++) {
+				if (this.elementAt[i] != pc.get(i).alleleIndex())
+					changes++;
+			}
+		}
+		if (bc != this.bits) {
+			for (int i = 0; i < bc.length() && changes <= maxChanges; i++) {
+				if (this.separators.get(i) != bc.get(i).bit())
+					changes++;
+			}
+		}
+		return changes <= maxChanges ? changes : -1;
+	}
+
+	// Applies the swaps and the separator flips that turn this state into the given chromosomes
+	public void updateTo(PermutationChromosome<Integer> pc, BitChromosome bc) {
+		if (pc != this.permutation) {
+			for (int i = 0; i < this.elementAt.length; i++) {
+				int elementId = pc.get(i).alleleIndex();
+				if (this.elementAt[i] != elementId)
+					swap(i, this.positionOf[elementId]);
+			}
+		}
+		if (bc != this.bits) {
+			for (int i = 0; i < bc.length(); i++) {
+				if (this.separators.get(i) != bc.get(i).bit())
+					flipSeparator(i);
+			}
+		}
+		this.permutation = pc;
+		this.bits = bc;
+	}
+
+	public void swap(int position, int otherPosition) {
+		int elementId = this.elementAt[position];
+		int otherElementId = this.elementAt[otherPosition];
+		int label = this.labelOf[elementId];
+		int otherLabel = this.labelOf[otherElementId];
+		if (label != otherLabel) {
+			move(elementId, label, otherLabel);
+			move(otherElementId, otherLabel, label);
+		}
+		this.elementAt[position] = otherElementId;
+		this.elementAt[otherPosition] = elementId;
+		this.positionOf[elementId] = otherPosition;
+		this.positionOf[otherElementId] = position;
+	}
+
+	// Splits (or merges) the module at the separator after the position
+	public void flipSeparator(int position) {
+		int end = this.separators.nextSetBit(position + 1);
+		if (end < 0 || end >= this.elementAt.length)
+			end = this.elementAt.length - 1;
+		int label = this.labelOf[this.elementAt[position]];
+		int otherLabel = this.labelOf[this.elementAt[position + 1]];
+		if (this.separators.get(position) == false) {
+			// Split, the elements after the position start a new module
+			this.separators.set(position);
+			this.numberOfModules++;
+			for (int i = position + 1; i <= end; i++)
+				move(this.elementAt[i], label, position + 1);
+		} else {
+			// Merge, the module after the position joins the module of the position
+			this.separators.clear(position);
+			this.numberOfModules--;
+			for (int i = position + 1; i <= end; i++)
+				move(this.elementAt[i], otherLabel, label);
+		}
+	}
+
+	private void move(int elementId, int fromLabel, int toLabel) {
+		for (int n = this.graph.begin(elementId); n < this.graph.end(elementId); n++) {
+			int neighbourLabel = this.labelOf[this.graph.neighbour(n)];
+			if (neighbourLabel == fromLabel) {
+				this.intraEdgesOf[fromLabel]--;
+				this.intraEdges--;
+			} else if (neighbourLabel == toLabel) {
+				this.intraEdgesOf[toLabel]++;
+				this.intraEdges++;
+			}
+		}
+		this.labelOf[elementId] = toLabel;
+		this.sizeOf[fromLabel]--;
+		this.sizeOf[toLabel]++;
+	}
+
+	@SuppressWarnings("rawtypes")
+	public boolean isBuiltFrom(Chromosome chromosome) {
+		return chromosome == this.permutation || chromosome == this.bits;
+	}
+
+	public int size() {
+		return this.elementAt.length;
+	}
+
+	public int numberOfModules() {
+		return this.numberOfModules;
+	}
+
+	// Number of edges with both ends in the same module
+	public int intraEdges() {
+		return this.intraEdges;
+	}
+
+	// Label of the first module
+	public int firstModule() {
+		return 0;
+	}
+
+	// Label of the module after the given one, -1 after the last module
+	public int nextModule(int label) {
+		int separator = this.separators.nextSetBit(label);
+		return separator < 0 || separator + 1 >= this.elementAt.length ? -1 : separator + 1;
+	}
+
+	public int sizeOf(int label) {
+		return this.sizeOf[label];
+	}
+
+	public int intraEdgesOf(int label) {
+		return this.intraEdgesOf[label];
+	}
+}
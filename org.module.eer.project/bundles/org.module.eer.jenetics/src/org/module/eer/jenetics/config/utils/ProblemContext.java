@@ -0,0 +1,115 @@
+package org.module.eer.jenetics.config.utils;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.EList;
+import org.module.eer.jenetics.split.constraint.BasicConstraint;
+import org.module.eer.jenetics.split.constraint.RepairPlan;
+import org.module.eer.mm.moduleeer.ModularizableElement;
+import org.module.eer.mm.moduleeer.Module;
+
+/*
+ * Everything about one model that the runs of a split need and that does not depend on the run: the
+ * id of every element (its index in the list of modularizable elements), the ModularizableReferenceIndex,
+ * the ModuleGraph of the objectives, the DependencyTable and the RepairPlan of the constraints. The
+ * context is built once per model and it is read-only, so the parallel runs, their fitness functions
+ * and their constraints share it without synchronization. The list of elements belongs to the model,
+ * it must not change while the context is used.
+ * */
+public final class ProblemContext {
+
+	private final EList<ModularizableElement> elements;
+	private final Map<ModularizableElement, Integer> elementIds;
+	private final ModularizableReferenceIndex referenceIndex;
+	private final ModuleGraph graph;
+	private final DependencyTable dependencyTable;
+	private final RepairPlan repairPlan;
+
+	private ProblemContext(EList<ModularizableElement> elements, Map<ModularizableElement, Integer> elementIds,
+			ModularizableReferenceIndex referenceIndex, ModuleGraph graph, DependencyTable dependencyTable) {
+		this.elements = elements;
+		this.elementIds = elementIds;
+		this.referenceIndex = referenceIndex;
+		this.graph = graph;
+		this.dependencyTable = dependencyTable;
+		this.repairPlan = RepairPlan.of(dependencyTable.constraints());
+	}
+
+	// The graph of the objectives is the reference graph of the elements
+	public static ProblemContext of(Module module) {
+		return of(module, null, null);
+	}
+
+	// The graph of the objectives is the given graph, or the reference graph of the elements when it is null
+	public static ProblemContext of(Module module, ModuleGraph graph) {
+		return of(module, graph, null);
+	}
+
+	/*
+	 * The graph of the objectives is the weighted graph of the references of the elements
+	 * (ModularizableReferenceIndex.weightedGraph), or the unweighted reference graph when the weights
+	 * are null
+	 * */
+	public static ProblemContext of(Module module, EdgeWeights edgeWeights) {
+		return of(module, null, edgeWeights);
+	}
+
+	private static ProblemContext of(Module module, ModuleGraph graph, EdgeWeights edgeWeights) {
+		final EList<ModularizableElement> elements = module.getModularizableElements();
+		final Map<ModularizableElement, Integer> elementIds = ModularizableReferenceIndex.elementIds(elements);
+		final ModularizableReferenceIndex referenceIndex = ModularizableReferenceIndex.of(elements, elementIds);
+		if (graph == null)
+			graph = edgeWeights == null ? referenceIndex.referenceGraph() : referenceIndex.weightedGraph(edgeWeights);
+		else if (graph.size() != elements.size())
+			throw new IllegalArgumentException("The graph has " + graph.size() + " nodes for " + elements.size() +
+					" modularizable elements");
+		return new ProblemContext(elements, elementIds, referenceIndex, graph,
+				DependencyTable.of(elements, elementIds));
+	}
+
+	public EList<ModularizableElement> getElements() {
+		return elements;
+	}
+
+	// Number of modularizable elements
+	public int size() {
+		return this.elements.size();
+	}
+
+	// Id of the element, -1 when it is not a modularizable element of the model
+	public int idOf(ModularizableElement element) {
+		Integer elementId = this.elementIds.get(element);
+		return elementId == null ? -1 : elementId;
+	}
+
+	public ModularizableReferenceIndex getReferenceIndex() {
+		return referenceIndex;
+	}
+
+	public ModuleGraph getGraph() {
+		return graph;
+	}
+
+	public int numberOfEdges() {
+		return this.graph.numberOfEdges();
+	}
+
+	// Sum of the weights of the edges (the number of edges of an unweighted graph)
+	public double totalWeight() {
+		return this.graph.totalWeight();
+	}
+
+	public DependencyTable getDependencyTable() {
+		return dependencyTable;
+	}
+
+	// Dependency constraints as BasicConstraints (unmodifiable)
+	public List<BasicConstraint> getDependencies() {
+		return this.dependencyTable.constraints();
+	}
+
+	public RepairPlan getRepairPlan() {
+		return repairPlan;
+	}
+}
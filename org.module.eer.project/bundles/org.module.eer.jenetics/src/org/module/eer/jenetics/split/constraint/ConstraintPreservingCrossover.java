@@ -0,0 +1,88 @@
+package org.module.eer.jenetics.split.constraint;
+
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+import org.module.eer.jenetics.config.utils.ModuleAssignment;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Gene;
+import io.jenetics.Genotype;
+import io.jenetics.PermutationChromosome;
+import io.jenetics.Phenotype;
+import io.jenetics.Recombinator;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * Crossover of the permutation + separators encoding that keeps the ModularizableDependenciesConstraint
+ * satisfied. Like the GroupCrossover, every child keeps the modules of one parent and receives a random
+ * subset of the modules of the other parent as new modules. A module of a feasible parent holds the
+ * related elements of its elements, and the elements of the receiver that depend on an injected
+ * element follow it (see ConstraintPreservingMoves), so the children of feasible parents are feasible.
+ * A child with a number of modules out of the bounds of the constraint keeps the receiver parent.
+ * */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class ConstraintPreservingCrossover<G extends Gene<?, G>, C extends Comparable<? super C>> extends Recombinator<G, C> {
+
+	private final ModularizableDependenciesConstraint constraint;
+
+	public ConstraintPreservingCrossover(ModularizableDependenciesConstraint constraint, double probability) {
+		super(probability, 2);
+		this.constraint = constraint;
+	}
+
+	@Override
+	protected int recombine(MSeq<Phenotype<G, C>> population, int[] individuals, long generation) {
+		final RandomGenerator random = RandomRegistry.random();
+		final Genotype that = population.get(individuals[0]).genotype();
+		final Genotype other = population.get(individuals[1]).genotype();
+		return inject(population, individuals[0], that, other, generation, random) +
+				inject(population, individuals[1], other, that, generation, random);
+	}
+
+	/*
+	 * Replaces the receiver with the child, returns the number of moved elements
+	 * */
+	private int inject(MSeq<Phenotype<G, C>> population, int individual, Genotype receiver, Genotype donor,
+			long generation, RandomGenerator random) {
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) receiver.get(0);
+		final BitChromosome bitChromosome = (BitChromosome) receiver.get(1);
+		final int[] elementAt = ModularizableDependenciesConstraint.elementAt(pc);
+		final BitSet separators = bitChromosome.toBitSet();
+		final ModuleAssignment modules = ModuleAssignment.of(elementAt, separators);
+		final ModuleAssignment donorModules = ModuleAssignment.of(
+				ModularizableDependenciesConstraint.elementAt((PermutationChromosome<Integer>) donor.get(0)),
+				((BitChromosome) donor.get(1)).toBitSet());
+		final int numberOfDonorModules = donorModules.numberOfModules();
+		boolean[] injected = new boolean[numberOfDonorModules];
+		boolean any = false;
+		for (int m = 0; m < numberOfDonorModules; m++) {
+			injected[m] = random.nextBoolean();
+			any |= injected[m];
+		}
+		if (any == false)
+			injected[random.nextInt(numberOfDonorModules)] = true;
+		// The first element of every injected module goes to a new module, the others follow it
+		final ConstraintPreservingMoves moves = new ConstraintPreservingMoves(this.constraint.getRepairPlan(), modules);
+		int[] first = new int[numberOfDonorModules];
+		for (int m = 0; m < numberOfDonorModules; m++)
+			first[m] = ConstraintPreservingMoves.NEW_MODULE;
+		for (int elementId = 0; elementId < elementAt.length; elementId++) {
+			final int m = donorModules.moduleOf(elementId);
+			if (injected[m] == false)
+				continue;
+			moves.add(elementId, first[m]);
+			if (first[m] == ConstraintPreservingMoves.NEW_MODULE)
+				first[m] = elementId;
+		}
+		final int moved = moves.apply();
+		if (modules.moves() == 0 ||
+				this.constraint.isValidNumberOfModules(modules.numberOfModules(), modules.size()) == false)
+			return 0;
+		modules.materialize(elementAt, separators);
+		final Genotype child = ModularizableDependenciesConstraint.genotype(pc, elementAt, separators, bitChromosome);
+		population.set(individual, Phenotype.of(child, generation));
+		return moved;
+	}
+}
@@ -0,0 +1,95 @@
+package org.module.eer.jenetics.split.constraint;
+
+import org.module.eer.jenetics.config.utils.ModuleAssignment;
+
+/*
+ * Moves of elements on a ModuleAssignment that keep the steps of a RepairPlan satisfied. Every moved
+ * element takes along the elements that depend on it and would be left without any related element
+ * in their module (transitively), they go to the module of the element they depend on. The last
+ * applied batch can be undone, e.g. when it leaves a number of modules out of the bounds.
+ * */
+final class ConstraintPreservingMoves {
+
+	// Target of an element that goes to a new module
+	static final int NEW_MODULE = -1;
+
+	private final RepairPlan repairPlan;
+	private final ModuleAssignment modules;
+	// Moved elements, the element (or NEW_MODULE) whose module they go to and their old module
+	private final int[] moved;
+	private final int[] targets;
+	private final int[] from;
+	private final boolean[] marked;
+	private int count = 0;
+	private boolean applied = false;
+
+	ConstraintPreservingMoves(RepairPlan repairPlan, ModuleAssignment modules) {
+		this.repairPlan = repairPlan;
+		this.modules = modules;
+		this.moved = new int[modules.size()];
+		this.targets = new int[modules.size()];
+		this.from = new int[modules.size()];
+		this.marked = new boolean[modules.size()];
+	}
+
+	// Adds an element to the batch, the targets of a batch are resolved in the order they are added
+	void add(int elementId, int targetElementId) {
+		if (this.applied == true) {
+			this.count = 0;
+			this.applied = false;
+		}
+		if (this.marked[elementId] == true)
+			return;
+		this.marked[elementId] = true;
+		this.moved[this.count] = elementId;
+		this.targets[this.count++] = targetElementId;
+	}
+
+	/*
+	 * Adds the followers of the batch and moves every element of the batch. Returns the number of moved
+	 * elements.
+	 * */
+	int apply() {
+		// The followers are found on the modules before the moves
+		for (int i = 0; i < this.count; i++) {
+			final int elementId = this.moved[i];
+			final int module = this.modules.moduleOf(elementId);
+			for (int dependent : this.repairPlan.dependentsOf(elementId)) {
+				if (this.marked[dependent] == false && this.modules.moduleOf(dependent) == module &&
+						anchored(dependent) == false)
+					add(dependent, elementId);
+			}
+		}
+		for (int i = 0; i < this.count; i++) {
+			this.from[i] = this.modules.moduleOf(this.moved[i]);
+			if (this.targets[i] != NEW_MODULE) {
+				this.modules.moveToModuleOf(this.moved[i], this.targets[i]);
+			} else if (this.modules.sizeOfModuleOf(this.moved[i]) > 1) {
+				this.modules.moveToModule(this.moved[i], this.modules.emptyModule());
+			}
+			this.marked[this.moved[i]] = false;
+		}
+		this.applied = true;
+		return this.count;
+	}
+
+	// Moves the elements of the last batch back to their old modules
+	void undo() {
+		if (this.applied == false)
+			return;
+		for (int i = this.count - 1; i >= 0; i--)
+			this.modules.moveToModule(this.moved[i], this.from[i]);
+		this.count = 0;
+		this.applied = false;
+	}
+
+	// True when a related element that stays in the module of the element is left
+	private boolean anchored(int elementId) {
+		for (int relatedElementId : this.repairPlan.dependenciesOf(elementId)) {
+			if (this.marked[relatedElementId] == false &&
+					this.modules.belongsToTheSameModule(relatedElementId, elementId))
+				return true;
+		}
+		return false;
+	}
+}
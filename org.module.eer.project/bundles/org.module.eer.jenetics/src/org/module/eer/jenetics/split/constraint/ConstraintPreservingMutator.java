@@ -0,0 +1,83 @@
+package org.module.eer.jenetics.split.constraint;
+
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+import org.module.eer.jenetics.config.utils.ModuleAssignment;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Gene;
+import io.jenetics.Genotype;
+import io.jenetics.Mutator;
+import io.jenetics.MutatorResult;
+import io.jenetics.PermutationChromosome;
+import io.jenetics.Phenotype;
+
+/*
+ * Mutation of the permutation + separators encoding that keeps the ModularizableDependenciesConstraint
+ * satisfied. Every element moves with probability p * p (as the Mutator, that selects a chromosome and
+ * then its genes with probability p): a constrained element to the module of one of its
+ * related elements, any other element to another module or to a new module. The elements that depend
+ * on the moved element follow it (see ConstraintPreservingMoves), and a move that leaves a number of
+ * modules out of the bounds of the constraint is undone. A feasible individual stays feasible, the
+ * repair of the constraint is only a fallback.
+ * */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class ConstraintPreservingMutator<G extends Gene<?, G>, C extends Comparable<? super C>> extends Mutator<G, C> {
+
+	private final ModularizableDependenciesConstraint constraint;
+
+	public ConstraintPreservingMutator(ModularizableDependenciesConstraint constraint, double probability) {
+		super(probability);
+		this.constraint = constraint;
+	}
+
+	@Override
+	protected MutatorResult<Phenotype<G, C>> mutate(Phenotype<G, C> phenotype, long generation, double p,
+			RandomGenerator random) {
+		final MutatorResult<Genotype<G>> result = mutate(phenotype.genotype(), p, random);
+		// Nothing moved, the individual keeps its fitness
+		if (result.mutations() == 0)
+			return new MutatorResult<Phenotype<G, C>>(phenotype, 0);
+		return new MutatorResult<Phenotype<G, C>>(Phenotype.of(result.result(), generation), result.mutations());
+	}
+
+	@Override
+	protected MutatorResult<Genotype<G>> mutate(Genotype<G> genotype, double p, RandomGenerator random) {
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) (Object) genotype.get(0);
+		final BitChromosome bitChromosome = (BitChromosome) (Object) genotype.get(1);
+		final RepairPlan repairPlan = this.constraint.getRepairPlan();
+		final int[] elementAt = ModularizableDependenciesConstraint.elementAt(pc);
+		final BitSet separators = bitChromosome.toBitSet();
+		final ModuleAssignment modules = ModuleAssignment.of(elementAt, separators);
+		final ConstraintPreservingMoves moves = new ConstraintPreservingMoves(repairPlan, modules);
+		int mutations = 0;
+		for (int elementId = 0; elementId < elementAt.length; elementId++) {
+			if (random.nextDouble() >= p * p)
+				continue;
+			final int[] dependencies = repairPlan.dependenciesOf(elementId);
+			int target;
+			if (dependencies.length > 0) {
+				target = dependencies[random.nextInt(dependencies.length)];
+			} else if (random.nextInt(modules.numberOfModules() + 1) == 0) {
+				target = ConstraintPreservingMoves.NEW_MODULE;
+			} else {
+				target = random.nextInt(elementAt.length);
+			}
+			if (target != ConstraintPreservingMoves.NEW_MODULE && modules.belongsToTheSameModule(elementId, target))
+				continue;
+			moves.add(elementId, target);
+			int moved = moves.apply();
+			if (this.constraint.isValidNumberOfModules(modules.numberOfModules(), modules.size()) == false)
+				moves.undo();
+			else
+				mutations += moved;
+		}
+		if (mutations == 0)
+			return new MutatorResult<Genotype<G>>(genotype, 0);
+		modules.materialize(elementAt, separators);
+		return new MutatorResult<Genotype<G>>(
+				(Genotype<G>) ModularizableDependenciesConstraint.genotype(pc, elementAt, separators, bitChromosome),
+				mutations);
+	}
+}
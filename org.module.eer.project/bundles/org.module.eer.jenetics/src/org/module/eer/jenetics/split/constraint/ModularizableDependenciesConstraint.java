@@ -1,15 +1,10 @@
 package org.module.eer.jenetics.split.constraint;
 
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Random;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.random.RandomGenerator;
 
-import org.apache.commons.lang.StringUtils;
-import org.module.eer.jenetics.config.utils.ModularizableElementUtils;
+import org.module.eer.jenetics.config.utils.ModuleAssignment;
 
 import io.jenetics.BitChromosome;
 import io.jenetics.Chromosome;
@@ -19,203 +14,263 @@ import io.jenetics.PermutationChromosome;
 import io.jenetics.Phenotype;
 import io.jenetics.engine.Constraint;
 import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
 
+/*
+ * The repair works on a copy of the genotype: elementAt[position] is the element id at every
+ * position of the PermutationChromosome and bit i of the separators is set when a module ends
+ * after the position i (the bits of the BitChromosome). The elements are relocated on a
+ * ModuleAssignment, so a move costs O(1) instead of shifting the elements in between.
+ * test() decodes the module of every element and checks the steps of the RepairPlan, a feasible
+ * individual is not repaired and it keeps its fitness. The repair also returns the individual
+ * itself when nothing had to change.
+ * The number of modules can be bounded, the minimum is lowered to the number of elements when there
+ * are less elements.
+ * */
 @SuppressWarnings("rawtypes")
 public class ModularizableDependenciesConstraint implements Constraint{
-	
-	private List<BasicConstraint> listOfConstraints; 
+
+	// Passes over a plan with cycles, the moves of one pass can break a constraint of the cycle
+	private static final int MAX_PASSES = 8;
+	// Rounds of the repair of the number of modules and the constraints, the constraints can merge
+	// the modules added to reach the minimum
+	private static final int MAX_ROUNDS = 16;
+
+	private List<BasicConstraint> listOfConstraints;
+	// Order of the repair, computed once from the list of constraints
+	private RepairPlan repairPlan;
 	private int minNumberOfModules;
 	private int maxNumberOfModules;
-	
+
+	// Without bounds of the number of modules
 	public ModularizableDependenciesConstraint(List<BasicConstraint> listOfConstraints, int optimalNumberOfModules) {
+		this(listOfConstraints, 1, Integer.MAX_VALUE);
+	}
+
+	public ModularizableDependenciesConstraint(List<BasicConstraint> listOfConstraints, int minNumberOfModules,
+			int maxNumberOfModules) {
+		this(listOfConstraints, RepairPlan.of(listOfConstraints), minNumberOfModules, maxNumberOfModules);
+	}
+
+	// The repair plan of the constraints, e.g. the plan of a ProblemContext shared by the runs of a model
+	public ModularizableDependenciesConstraint(List<BasicConstraint> listOfConstraints, RepairPlan repairPlan,
+			int minNumberOfModules, int maxNumberOfModules) {
+		if (minNumberOfModules < 1 || maxNumberOfModules < minNumberOfModules)
+			throw new IllegalArgumentException("Invalid bounds of the number of modules: [" + minNumberOfModules +
+					", " + maxNumberOfModules + "]");
 		this.listOfConstraints = listOfConstraints;
+		this.repairPlan = repairPlan;
+		this.minNumberOfModules = minNumberOfModules;
+		this.maxNumberOfModules = maxNumberOfModules;
+	}
+
+	// Between half and one and a half times the optimal number of modules (at least 2 modules)
+	public static ModularizableDependenciesConstraint aroundOptimalNumberOfModules(List<BasicConstraint> listOfConstraints,
+			int optimalNumberOfModules) {
 		int half = optimalNumberOfModules/2;
-		this.minNumberOfModules = 1;
-		this.maxNumberOfModules = Integer.MAX_VALUE;
-//		this.minNumberOfModules = optimalNumberOfModules - half <= 1? 2 :optimalNumberOfModules-half;
-//		this.maxNumberOfModules = optimalNumberOfModules + half;
-	}	
-		
+		int minNumberOfModules = optimalNumberOfModules - half <= 1? 2 :optimalNumberOfModules-half;
+		int maxNumberOfModules = Math.max(minNumberOfModules, optimalNumberOfModules + half);
+		return new ModularizableDependenciesConstraint(listOfConstraints, minNumberOfModules, maxNumberOfModules);
+	}
+
+	@SuppressWarnings("unchecked")
 	@Override
-	public boolean test(Phenotype individual) {		
-		return false;
+	public boolean test(Phenotype individual) {
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) individual.genotype().get(0);
+		final BitChromosome bitChromosome = ((BitChromosome) individual.genotype().get(1));
+		if (validNumberOfModules(bitChromosome.bitCount() + 1, pc.length()) == false)
+			return false;
+		// Module of every element, in one pass over both chromosomes
+		int[] moduleOf = new int[pc.length()];
+		int currentModule = 0;
+		for (int i = 0; i < moduleOf.length; i++) {
+			moduleOf[pc.get(i).alleleIndex()] = currentModule;
+			if (i < bitChromosome.length() && bitChromosome.get(i).bit() == true)
+				currentModule++;
+		}
+		// The plan holds a step for every constraint that the repair can break, a constraint left
+		// out of the plan holds when the forced constraints of its group hold
+		for (int step = 0; step < this.repairPlan.size(); step++) {
+			final int module = moduleOf[this.repairPlan.elementAt(step)];
+			boolean satisfied = false;
+			for (int relatedElementId : this.repairPlan.dependenciesAt(step)) {
+				satisfied = moduleOf[relatedElementId] == module;
+				if (satisfied == true)
+					break;
+			}
+			if (satisfied == false)
+				return false;
+		}
+		return true;
+	}
+
+	// The cardinality of the separators is a popcount of the words of the BitSet
+	private boolean validNumberOfModules(BitSet separators, int numberOfElements) {
+		return validNumberOfModules(separators.cardinality() + 1, numberOfElements);
 	}
-	
-	private boolean validNumberOfModules(StringBuilder strBuilder) {
-		int numberOfClusters = StringUtils.countMatches(strBuilder.toString(), "1") + 1;
-		if (numberOfClusters >= this.minNumberOfModules && numberOfClusters <= this.maxNumberOfModules)
+
+	private boolean validNumberOfModules(int numberOfClusters, int numberOfElements) {
+		if (numberOfClusters >= Math.min(this.minNumberOfModules, numberOfElements) &&
+				numberOfClusters <= this.maxNumberOfModules)
 			return true;
 		return false;
-	}	
-	
-	private void repairNumberOfModules(StringBuilder strBuilder) {
-		int numberOfClusters = StringUtils.countMatches(strBuilder.toString(), "1") + 1;
-		if (!(numberOfClusters >= this.minNumberOfModules && numberOfClusters <= this.maxNumberOfModules)) {		
-			if (numberOfClusters > this.maxNumberOfModules) { // Remove some clusters
-				int remove = numberOfClusters - this.maxNumberOfModules;
-				List<Integer> ones = ones(strBuilder);						
-				Collections.shuffle(ones);
-				for (int i = 0; i < remove; i++) {
-					strBuilder.replace(ones.get(i), ones.get(i) + 1, "0");
-				}			
-			} else { // Add some clusters
-				int add = this.minNumberOfModules - numberOfClusters;
-				int addedCluster = 0;
-				Random random = new Random();
-				while (add != addedCluster) {
-					int randomPosition = random.nextInt(strBuilder.length());
-					if (strBuilder.charAt(randomPosition) == '0') {
-						strBuilder.replace(randomPosition, randomPosition + 1, "1");
-						addedCluster++;
-					}
-				}
-			}
+	}
+
+	// Returns true when a separator was added or removed
+	private boolean repairNumberOfModules(BitSet separators, int length) {
+		int numberOfClusters = separators.cardinality() + 1;
+		if (validNumberOfModules(numberOfClusters, length + 1) == true)
+			return false;
+		final RandomGenerator random = RandomRegistry.random();
+		if (numberOfClusters > this.maxNumberOfModules) { // Remove some clusters
+			for (int position : randomPositions(separators, true, numberOfClusters - this.maxNumberOfModules, length, random))
+				separators.clear(position);
+		} else { // Add some clusters
+			int add = Math.min(this.minNumberOfModules - numberOfClusters, length - separators.cardinality());
+			for (int position : randomPositions(separators, false, add, length, random))
+				separators.set(position);
 		}
+		return true;
 	}
-	
-	private List<Integer> ones(StringBuilder strBuilder) {
-		return IntStream
-		          .iterate(strBuilder.indexOf("1"), index -> index >= 0, index -> strBuilder.indexOf("1", index + 1))
-		          .boxed()
-		          .collect(Collectors.toList());
-	}
-
-	private void repairBasicConstraint(MSeq<EnumGene<Integer>> repairPc, StringBuilder strBuilder) {
-		for (BasicConstraint basicConstraint : this.listOfConstraints) {
-			int chromosomePosition = getPositionInPChromosome(repairPc, basicConstraint.getElementId());
-			boolean search = false;
-			for (int relatedElementId : basicConstraint.getElements()) {
-				search = ModularizableElementUtils.belongsToTheSameModule(relatedElementId, chromosomePosition, 
-						repairPc, strBuilder.toString());
-				if (search == true)
-					break;
-			}			
-			if (search == false) {				
-				try {
-					int toPosition = prioritizeModuleLessElements(basicConstraint.getElements(), strBuilder, repairPc);
-					updateModuleOf(chromosomePosition, toPosition, repairPc, strBuilder);					
-				} catch (Exception e) {					
-					e.printStackTrace();
-				} 				
-			}			
+
+	/*
+	 * Selects k random positions in [0, length) where the separator bit has the value, every subset
+	 * with the same probability (reservoir sampling, one pass over the positions with the value)
+	 * */
+	private static int[] randomPositions(BitSet separators, boolean value, int k, int length, RandomGenerator random) {
+		int[] reservoir = new int[k];
+		int seen = 0;
+		int position = value == true ? separators.nextSetBit(0) : separators.nextClearBit(0);
+		while (position >= 0 && position < length) {
+			if (seen < k) {
+				reservoir[seen] = position;
+			} else {
+				int i = random.nextInt(seen + 1);
+				if (i < k)
+					reservoir[i] = position;
+			}
+			seen++;
+			position = value == true ? separators.nextSetBit(position + 1) : separators.nextClearBit(position + 1);
 		}
+		return reservoir;
 	}
-	
-	private int getPositionInPChromosome(MSeq<EnumGene<Integer>> repairPc, int elementId) {
-		for (int i = 0; i < repairPc.length(); i++) {
-			if (repairPc.get(i).allele() == elementId)
-				return i;
+
+	/*
+	 * One pass in the order of the RepairPlan, every element is moved after the elements it depends
+	 * on, so a move never breaks a constraint that was already repaired (only a plan with cycles
+	 * needs more passes). The elements are moved on a ModuleAssignment, the chromosome order and the
+	 * separators are written back once, when something moved. Returns true when something moved.
+	 * */
+	private boolean repairBasicConstraint(int[] elementAt, BitSet separators) {
+		ModuleAssignment modules = ModuleAssignment.of(elementAt, separators);
+		int passes = 0;
+		int moves;
+		do {
+			moves = modules.moves();
+			for (int step = 0; step < this.repairPlan.size(); step++) {
+				final int elementId = this.repairPlan.elementAt(step);
+				final int[] dependencies = this.repairPlan.dependenciesAt(step);
+				boolean search = false;
+				for (int relatedElementId : dependencies) {
+					search = modules.belongsToTheSameModule(relatedElementId, elementId);
+					if (search == true)
+						break;
+				}
+				if (search == false)
+					modules.moveToModuleOf(elementId, prioritizeModuleLessElements(dependencies, modules));
+			}
 		}
-		throw new IllegalArgumentException("The Chromosome is invalid");
+		while (this.repairPlan.isAcyclic() == false && modules.moves() > moves && ++passes < MAX_PASSES);
+		if (modules.moves() > 0)
+			modules.materialize(elementAt, separators);
+		return modules.moves() > 0;
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Phenotype repair(Phenotype individual, long generation) {
-		MSeq<EnumGene<Integer>> repairPc = MSeq.of((PermutationChromosome<Integer>) individual.genotype().get(0));
-		BitChromosome bitChromosome = ((BitChromosome) individual.genotype().get(1));
-		StringBuilder strBuilder = new StringBuilder(bitChromosome.toCanonicalString());
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) individual.genotype().get(0);
+		final BitChromosome bitChromosome = ((BitChromosome) individual.genotype().get(1));
+		int[] elementAt = elementAt(pc);
+		BitSet separators = bitChromosome.toBitSet();
+		// The constraints hold after one pass, the loop is only needed when the pass leaves
+		// less modules than the minimum (the constraints may not allow the minimum at all)
+		boolean changed = false;
+		int rounds = 0;
 		do {
-			repairNumberOfModules(strBuilder);			
-			repairBasicConstraint(repairPc, strBuilder);			
-		} 
-		while (validNumberOfModules(strBuilder) == false);
-		
-		return newPhenotype(repairPc, strBuilder.toString(), bitChromosome.oneProbability(), generation);
-	}	
+			changed |= repairNumberOfModules(separators, bitChromosome.length());
+			changed |= repairBasicConstraint(elementAt, separators);
+		}
+		while (validNumberOfModules(separators, elementAt.length) == false && ++rounds < MAX_ROUNDS);
+
+		// Nothing to repair, the individual keeps its fitness
+		if (changed == false)
+			return individual;
+		return Phenotype.of(genotype(pc, elementAt, separators, bitChromosome), generation);
+	}
 
 	//Select the module with less elements to insert the relationshipType instance
 	//If all the elements has the same number of elements, then the module is selected randomly
-	private int prioritizeModuleLessElements(List<Integer> listOfelements, StringBuilder strBuilder, 
-			MSeq<EnumGene<Integer>> enumChromosome) throws Exception {
-		//Map<Position of the Element, Number of Elements in that Module>
-		TreeMap<Integer, Integer> elementsNumberOfModule = new TreeMap<Integer, Integer>();
-		for (Integer element : listOfelements) {
-			int positionElement = getPositionInPChromosome(enumChromosome, element); 
-			int numberOfElementsInModule = ModularizableElementUtils.numberOfElementsInModule(positionElement, strBuilder);
-			if (elementsNumberOfModule.size() == 0)
-				elementsNumberOfModule.put(positionElement, numberOfElementsInModule);
-			else {
-				if (elementsNumberOfModule.firstEntry().getValue() > numberOfElementsInModule) {
-					elementsNumberOfModule.clear();
-					elementsNumberOfModule.put(positionElement,	numberOfElementsInModule);
-				} else if (elementsNumberOfModule.firstEntry().getValue() == numberOfElementsInModule){
-					elementsNumberOfModule.put(positionElement,	numberOfElementsInModule);
-				}
+	//Returns the id of the selected element
+	private int prioritizeModuleLessElements(int[] listOfelements, ModuleAssignment modules) {
+		int toElementId = -1;
+		int minNumberOfElements = Integer.MAX_VALUE;
+		int ties = 0;
+		for (int element : listOfelements) {
+			int numberOfElementsInModule = modules.sizeOfModuleOf(element);
+			if (numberOfElementsInModule < minNumberOfElements) {
+				minNumberOfElements = numberOfElementsInModule;
+				toElementId = element;
+				ties = 1;
+			} else if (numberOfElementsInModule == minNumberOfElements &&
+					RandomRegistry.random().nextInt(++ties) == 0) {
+				// Reservoir sampling, every tied element is selected with the same probability
+				toElementId = element;
 			}
-		}		
-		if (elementsNumberOfModule.size() == 1) 
-			return elementsNumberOfModule.firstEntry().getKey();
-		else {
-			int randomId = new Random().nextInt(elementsNumberOfModule.size());
-			Iterator<Integer> itElementsPositions = elementsNumberOfModule.keySet().iterator();
-			int pos = 0;
-			while (itElementsPositions.hasNext()) {
-				Integer mapPosition = (Integer) itElementsPositions.next();
-				if (pos == randomId)
-					return mapPosition;
-				else
-					pos++;
-			}			
-		}
-		throw new Exception("It could not be found a priority Module");		
-	}
-	
-	
-	private void updateModuleOf(int position, int toPosition, MSeq<EnumGene<Integer>> repairPc, StringBuilder strBuilder) {
-		removeSeparator(position, repairPc, strBuilder);
-		// Swap elements positions until toPosition
-		if (position > toPosition) {
-			swapElementsBackwards(toPosition, position, repairPc);
-			strBuilder.insert(toPosition, '0');
-		} else {
-			swapElementsForWards(position, toPosition, repairPc);
-			strBuilder.insert(toPosition - 1, '0');
-		}		
-	}
-	
-	private void swapElementsBackwards(int startPosition, int endPosition, MSeq<EnumGene<Integer>> repairPc) {
-		for (int i = endPosition; i > startPosition; i--) {
-			repairPc.swap(i-1, i);
-		}		
-	}
-
-	private void swapElementsForWards(int startPosition, int endPosition, MSeq<EnumGene<Integer>> repairPc) {
-		for (int i = startPosition; i < endPosition - 1; i++) {
-			repairPc.swap(i, i+1);
 		}
+		return toElementId;
 	}
-	
-	private void removeSeparator(int position, MSeq<EnumGene<Integer>> repairPc, StringBuilder strBuilder) {
-		if (position == 0)
-			strBuilder.deleteCharAt(0);
-		else if (position == (repairPc.length() - 1))
-			strBuilder.deleteCharAt(strBuilder.length() - 1);
-		else {
-			char nextSeparator = strBuilder.charAt(position);
-			char previousSeparator = strBuilder.charAt(position - 1);
-			strBuilder.delete(position-1, position + 1);
-			char newBit = '1';
-			if (previousSeparator == nextSeparator && previousSeparator == '0') {
-				newBit = '0';
-			} 
-			if (position >= strBuilder.length()) {
-				strBuilder.append(newBit);
-			} else {
-				strBuilder.insert(position, newBit);
-			}						
-		}		
+
+	// Element id at every position of the PermutationChromosome
+	static int[] elementAt(PermutationChromosome<Integer> pc) {
+		int[] elementAt = new int[pc.length()];
+		for (int i = 0; i < elementAt.length; i++)
+			elementAt[i] = pc.get(i).alleleIndex();
+		return elementAt;
 	}
-	
+
 	@SuppressWarnings("unchecked")
-	private Phenotype newPhenotype(MSeq<EnumGene<Integer>> repairPc, String stringBitChromosome, 
-			double probabilityOnes, long generation) {
-		PermutationChromosome<Integer> pc = new PermutationChromosome<Integer>(repairPc.toISeq());
-		BitChromosome bc = BitChromosome.of(stringBitChromosome, stringBitChromosome.length(), probabilityOnes);				
+	static Genotype genotype(PermutationChromosome<Integer> pc, int[] elementAt, BitSet separators,
+			BitChromosome bitChromosome) {
+		// Gene of every element id, the genes are reused in their new positions
+		EnumGene<Integer>[] genes = new EnumGene[elementAt.length];
+		for (int i = 0; i < pc.length(); i++)
+			genes[pc.get(i).alleleIndex()] = pc.get(i);
+		MSeq<EnumGene<Integer>> repairPc = MSeq.ofLength(elementAt.length);
+		for (int i = 0; i < elementAt.length; i++)
+			repairPc.set(i, genes[elementAt[i]]);
+		BitChromosome bc = BitChromosome.of(separators, bitChromosome.length(), bitChromosome.oneProbability());
 		final Genotype genoType = Genotype.of(
-				(Chromosome) pc,
-				(Chromosome) bc 
-				);		
-		return Phenotype.of(genoType, generation);	
-	}	
+				(Chromosome) new PermutationChromosome<Integer>(repairPc.toISeq()),
+				(Chromosome) bc
+				);
+		return genoType;
+	}
+
+	public RepairPlan getRepairPlan() {
+		return repairPlan;
+	}
+
+	public int getMinNumberOfModules() {
+		return minNumberOfModules;
+	}
+
+	public int getMaxNumberOfModules() {
+		return maxNumberOfModules;
+	}
+
+	// True when the number of modules of a partition of the elements is within the bounds
+	public boolean isValidNumberOfModules(int numberOfModules, int numberOfElements) {
+		return validNumberOfModules(numberOfModules, numberOfElements);
+	}
 }
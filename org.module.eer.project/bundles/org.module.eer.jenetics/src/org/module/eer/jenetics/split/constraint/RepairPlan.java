@@ -0,0 +1,267 @@
+package org.module.eer.jenetics.split.constraint;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Order in which the BasicConstraints are repaired, so that one pass is enough: an element is only
+ * moved after every element it depends on has taken its final module.
+ * A constraint with a single related element forces both elements into the same module, these
+ * forced co-locations are joined with a union-find into groups. Every group is a tree of forced
+ * constraints under a head (an element without constraint or with a choice among several related
+ * elements), the head is repaired first and then the forced elements, parents before children.
+ * The groups are visited in topological order of the choice constraints (the groups of the related
+ * elements before the group of the constrained element), cycles are broken by the list order (one
+ * pass may then leave a constraint of the cycle broken, see isAcyclic()).
+ * Related elements outside of the list (-1) are dropped, a constraint without related elements
+ * can not be repaired and it is left out. The plan is immutable and it is built once per model.
+ * */
+public final class RepairPlan {
+
+	private static final int[] NONE = new int[0];
+
+	// Constrained element and related elements of every step
+	private final int[] elements;
+	private final int[][] dependencies;
+	private final boolean acyclic;
+	// Step of every element (-1 without step) and the elements whose step lists the element
+	private final int[] stepOf;
+	private final int[][] dependents;
+
+	private RepairPlan(int[] elements, int[][] dependencies, boolean acyclic) {
+		this.elements = elements;
+		this.dependencies = dependencies;
+		this.acyclic = acyclic;
+		int size = 0;
+		for (int step = 0; step < elements.length; step++) {
+			size = Math.max(size, elements[step] + 1);
+			for (int elementId : dependencies[step])
+				size = Math.max(size, elementId + 1);
+		}
+		this.stepOf = new int[size];
+		Arrays.fill(this.stepOf, -1);
+		int[] numberOfDependents = new int[size];
+		for (int step = 0; step < elements.length; step++) {
+			this.stepOf[elements[step]] = step;
+			for (int elementId : dependencies[step])
+				numberOfDependents[elementId]++;
+		}
+		this.dependents = new int[size][];
+		for (int elementId = 0; elementId < size; elementId++)
+			this.dependents[elementId] = numberOfDependents[elementId] == 0 ? NONE : new int[numberOfDependents[elementId]];
+		for (int step = 0; step < elements.length; step++) {
+			for (int elementId : dependencies[step])
+				this.dependents[elementId][--numberOfDependents[elementId]] = elements[step];
+		}
+	}
+
+	public static RepairPlan of(List<BasicConstraint> listOfConstraints) {
+		final int numberOfConstraints = listOfConstraints.size();
+		int[] constrained = new int[numberOfConstraints];
+		int[][] related = new int[numberOfConstraints][];
+		int size = 0;
+		int c = 0;
+		for (BasicConstraint basicConstraint : listOfConstraints) {
+			constrained[c] = basicConstraint.getElementId();
+			related[c] = relatedElements(basicConstraint);
+			size = Math.max(size, constrained[c] + 1);
+			for (int elementId : related[c])
+				size = Math.max(size, elementId + 1);
+			c++;
+		}
+		// Constraint of every element, -1 when the element is not constrained
+		int[] constraintOf = new int[size];
+		Arrays.fill(constraintOf, -1);
+		int[] parent = new int[size];
+		for (int elementId = 0; elementId < size; elementId++)
+			parent[elementId] = elementId;
+		for (c = 0; c < numberOfConstraints; c++) {
+			if (related[c].length == 0)
+				continue;
+			constraintOf[constrained[c]] = c;
+			if (related[c].length == 1)
+				union(parent, constrained[c], related[c][0]);
+		}
+		// Forced children of every element (compressed sparse rows)
+		int[] childrenOffsets = new int[size + 1];
+		for (c = 0; c < numberOfConstraints; c++) {
+			if (related[c].length == 1)
+				childrenOffsets[related[c][0] + 1]++;
+		}
+		for (int elementId = 0; elementId < size; elementId++)
+			childrenOffsets[elementId + 1] += childrenOffsets[elementId];
+		int[] children = new int[childrenOffsets[size]];
+		int[] next = Arrays.copyOf(childrenOffsets, size);
+		for (c = 0; c < numberOfConstraints; c++) {
+			if (related[c].length == 1)
+				children[next[related[c][0]]++] = constrained[c];
+		}
+		// Head of every group, the element without a forced constraint (or the first constrained
+		// element of a cycle of forced constraints)
+		int[] head = new int[size];
+		Arrays.fill(head, -1);
+		for (int elementId = 0; elementId < size; elementId++) {
+			boolean forced = constraintOf[elementId] >= 0 && related[constraintOf[elementId]].length == 1;
+			if (forced == false && head[find(parent, elementId)] < 0)
+				head[find(parent, elementId)] = elementId;
+		}
+		// Groups with something to repair, in list order
+		int[] groups = new int[numberOfConstraints];
+		int numberOfGroups = 0;
+		boolean[] hasSteps = new boolean[size];
+		for (c = 0; c < numberOfConstraints; c++) {
+			int group = find(parent, constrained[c]);
+			if (related[c].length > 0 && hasSteps[group] == false) {
+				hasSteps[group] = true;
+				groups[numberOfGroups++] = group;
+				if (head[group] < 0)
+					head[group] = constrained[c];
+			}
+		}
+		// Choice constraints between different groups, the groups of the related elements go first
+		boolean[] choice = new boolean[numberOfConstraints];
+		int[] inDegree = new int[size];
+		int[] edgeOffsets = new int[size + 1];
+		for (c = 0; c < numberOfConstraints; c++) {
+			if (related[c].length < 2)
+				continue;
+			int group = find(parent, constrained[c]);
+			// A related element in the same group ends in the same module, the constraint always holds
+			choice[c] = true;
+			for (int elementId : related[c]) {
+				if (find(parent, elementId) == group)
+					choice[c] = false;
+			}
+			if (choice[c] == true) {
+				for (int elementId : related[c]) {
+					if (hasSteps[find(parent, elementId)] == true) {
+						edgeOffsets[find(parent, elementId) + 1]++;
+						inDegree[group]++;
+					}
+				}
+			}
+		}
+		for (int group = 0; group < size; group++)
+			edgeOffsets[group + 1] += edgeOffsets[group];
+		int[] edges = new int[edgeOffsets[size]];
+		next = Arrays.copyOf(edgeOffsets, size);
+		for (c = 0; c < numberOfConstraints; c++) {
+			if (choice[c] == true) {
+				for (int elementId : related[c]) {
+					if (hasSteps[find(parent, elementId)] == true)
+						edges[next[find(parent, elementId)]++] = find(parent, constrained[c]);
+				}
+			}
+		}
+		// Kahn's algorithm, a cycle is broken by the first group left in list order
+		int[] elements = new int[numberOfConstraints];
+		int[][] dependencies = new int[numberOfConstraints][];
+		int steps = 0;
+		boolean[] visited = new boolean[size];
+		ArrayDeque<Integer> ready = new ArrayDeque<Integer>();
+		for (int g = 0; g < numberOfGroups; g++) {
+			if (inDegree[groups[g]] == 0)
+				ready.add(groups[g]);
+		}
+		int nextGroup = 0;
+		int visitedGroups = 0;
+		boolean acyclic = true;
+		ArrayDeque<Integer> members = new ArrayDeque<Integer>();
+		while (visitedGroups < numberOfGroups) {
+			if (ready.isEmpty()) {
+				while (visited[groups[nextGroup]] == true)
+					nextGroup++;
+				ready.add(groups[nextGroup]);
+				acyclic = false;
+			}
+			int group = ready.poll();
+			if (visited[group] == true)
+				continue;
+			visited[group] = true;
+			visitedGroups++;
+			// The head and then the forced elements, parents before children
+			members.add(head[group]);
+			while (members.isEmpty() == false) {
+				int elementId = members.poll();
+				c = constraintOf[elementId];
+				if (c >= 0 && (related[c].length == 1 || choice[c] == true)) {
+					elements[steps] = elementId;
+					dependencies[steps++] = related[c];
+				}
+				for (int i = childrenOffsets[elementId]; i < childrenOffsets[elementId + 1]; i++) {
+					if (children[i] != head[group])
+						members.add(children[i]);
+				}
+			}
+			for (int i = edgeOffsets[group]; i < edgeOffsets[group + 1]; i++) {
+				if (--inDegree[edges[i]] == 0 && visited[edges[i]] == false)
+					ready.add(edges[i]);
+			}
+		}
+		return new RepairPlan(Arrays.copyOf(elements, steps), Arrays.copyOf(dependencies, steps), acyclic);
+	}
+
+	// Distinct related elements in the list, without the constrained element
+	private static int[] relatedElements(BasicConstraint basicConstraint) {
+		int[] related = new int[basicConstraint.getElements().size()];
+		int length = 0;
+		for (int elementId : basicConstraint.getElements()) {
+			boolean skip = elementId < 0 || elementId == basicConstraint.getElementId();
+			for (int i = 0; i < length && skip == false; i++)
+				skip = related[i] == elementId;
+			if (skip == false)
+				related[length++] = elementId;
+		}
+		return Arrays.copyOf(related, length);
+	}
+
+	private static int find(int[] parent, int elementId) {
+		while (parent[elementId] != elementId) {
+			parent[elementId] = parent[parent[elementId]];
+			elementId = parent[elementId];
+		}
+		return elementId;
+	}
+
+	private static void union(int[] parent, int elementId, int otherElementId) {
+		int root = find(parent, elementId);
+		int otherRoot = find(parent, otherElementId);
+		if (root != otherRoot)
+			parent[Math.max(root, otherRoot)] = Math.min(root, otherRoot);
+	}
+
+	// Number of steps
+	public int size() {
+		return this.elements.length;
+	}
+
+	// Constrained element of the step
+	public int elementAt(int step) {
+		return this.elements[step];
+	}
+
+	// Related elements of the step, the element has to share a module with one of them
+	public int[] dependenciesAt(int step) {
+		return this.dependencies[step];
+	}
+
+	// Related elements of the step of the element, empty when the element has no step
+	public int[] dependenciesOf(int elementId) {
+		if (elementId >= this.stepOf.length || this.stepOf[elementId] < 0)
+			return NONE;
+		return this.dependencies[this.stepOf[elementId]];
+	}
+
+	// Elements whose step lists the element among its related elements
+	public int[] dependentsOf(int elementId) {
+		if (elementId >= this.dependents.length)
+			return NONE;
+		return this.dependents[elementId];
+	}
+
+	// True when no cycle of choice constraints had to be broken, one pass repairs every constraint
+	public boolean isAcyclic() {
+		return this.acyclic;
+	}
+}
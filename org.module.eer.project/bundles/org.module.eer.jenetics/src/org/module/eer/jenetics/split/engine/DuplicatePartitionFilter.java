@@ -0,0 +1,121 @@
+package org.module.eer.jenetics.split.engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+import org.module.eer.jenetics.config.utils.CanonicalPartition;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Chromosome;
+import io.jenetics.EnumGene;
+import io.jenetics.Genotype;
+import io.jenetics.PermutationChromosome;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Constraint;
+import io.jenetics.engine.EvolutionInterceptor;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.Factory;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * Engine interceptor that removes the individuals encoding the same partition (CanonicalPartition)
+ * as another individual of the population. Every duplicate is replaced by a mutated copy (a few
+ * swaps and a separator flip, or a few relabels of the grouping encoding, repaired by the
+ * constraint) or, when the copy is still a duplicate, by a new individual of the genotype factory.
+ * The replacements are evaluated by the engine. The ratio of duplicates of every generation is
+ * recorded.
+ * */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class DuplicatePartitionFilter implements EvolutionInterceptor {
+
+	private static final int MAX_RETRIES = 10;
+
+	private final Factory<Genotype> genotypeFactory;
+	private final Constraint constraint;
+	private final List<Double> duplicateRatios = Collections.synchronizedList(new ArrayList<Double>());
+
+	public DuplicatePartitionFilter(Factory<Genotype> genotypeFactory, Constraint constraint) {
+		this.genotypeFactory = genotypeFactory;
+		this.constraint = constraint;
+	}
+
+	@Override
+	public EvolutionResult after(EvolutionResult result) {
+		final ISeq<Phenotype> population = result.population();
+		final Set<CanonicalPartition> partitions = new HashSet<CanonicalPartition>(population.size() * 2);
+		final List<Phenotype> uniques = new ArrayList<Phenotype>(population.size());
+		int duplicates = 0;
+		for (Phenotype phenotype : population) {
+			if (partitions.add(CanonicalPartition.of(phenotype.genotype()))) {
+				uniques.add(phenotype);
+			} else {
+				duplicates++;
+				uniques.add(replacement(phenotype, partitions, result.generation()));
+			}
+		}
+		this.duplicateRatios.add(population.isEmpty() ? 0.0 : (double) duplicates / population.size());
+		if (duplicates == 0)
+			return result;
+		// A new result makes the engine evaluate the replacements
+		return EvolutionResult.of(result.optimize(), (ISeq) ISeq.of(uniques), result.generation(), result.durations(),
+				result.killCount(), result.invalidCount(), result.alterCount());
+	}
+
+	private Phenotype replacement(Phenotype duplicate, Set<CanonicalPartition> partitions, long generation) {
+		Phenotype phenotype = Phenotype.of(mutate(duplicate.genotype()), generation);
+		if (this.constraint != null && !this.constraint.test(phenotype))
+			phenotype = this.constraint.repair(phenotype, generation);
+		for (int retries = 0; !partitions.add(CanonicalPartition.of(phenotype.genotype())); retries++) {
+			if (retries == MAX_RETRIES)
+				return duplicate;
+			phenotype = Phenotype.of(this.genotypeFactory.newInstance(), generation);
+		}
+		return phenotype;
+	}
+
+	private Genotype mutate(Genotype genotype) {
+		final RandomGenerator random = RandomRegistry.random();
+		if (GroupingEncoding.isGroupingEncoded(genotype)) {
+			// Move a few elements to other (or new) modules
+			final int[] labels = GroupingEncoding.labels(genotype);
+			final int moves = 1 + random.nextInt(Math.max(1, labels.length / 20));
+			for (int i = 0; i < moves; i++)
+				labels[random.nextInt(labels.length)] = random.nextInt(labels.length);
+			return GroupingEncoding.genotype(labels);
+		}
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) genotype.get(0);
+		final BitChromosome bc = (BitChromosome) genotype.get(1);
+		final MSeq<EnumGene<Integer>> genes = MSeq.of(pc);
+		final int swaps = 1 + random.nextInt(Math.max(1, pc.length() / 20));
+		for (int i = 0; i < swaps && pc.length() > 1; i++)
+			genes.swap(random.nextInt(pc.length()), random.nextInt(pc.length()));
+		BitChromosome bits = bc;
+		if (bc.length() > 0) {
+			BitSet separators = bc.toBitSet();
+			separators.flip(random.nextInt(bc.length()));
+			bits = BitChromosome.of(separators, bc.length());
+		}
+		return Genotype.of((Chromosome) new PermutationChromosome<Integer>(genes.toISeq()), (Chromosome) bits);
+	}
+
+	// Ratio of duplicated partitions of every generation
+	public List<Double> getDuplicateRatios() {
+		synchronized (this.duplicateRatios) {
+			return new ArrayList<Double>(this.duplicateRatios);
+		}
+	}
+
+	public double getLastDuplicateRatio() {
+		synchronized (this.duplicateRatios) {
+			return this.duplicateRatios.isEmpty() ? 0.0 : this.duplicateRatios.get(this.duplicateRatios.size() - 1);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.module.eer.jenetics.split.engine;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import org.module.eer.jenetics.split.metrics.Fronts;
+import org.module.eer.jenetics.split.metrics.Hypervolume;
+
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.ext.moea.Vec;
+import io.jenetics.util.ISeq;
+
+/*
+ * Limit of an EvolutionStream that stops once the hypervolume of the population no longer improves:
+ * the stream proceeds while the best hypervolume so far grew by at least threshold (relative) over
+ * the last window generations, and never beyond maxGenerations. The objectives are oriented by the
+ * comparator of the fitness Vec (minimized after orientation) and normalized by the ideal and nadir
+ * points of the first generation, the reference point is 10% beyond the nadir point. The hypervolume
+ * (Hypervolume.of) is exact with two or three objectives, with more objectives it is estimated on a
+ * fixed set of samples, so it does not draw from the RandomRegistry and a seeded run stays
+ * reproducible. A limit keeps the history of one stream, every stream needs its own limit.
+ * */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class HypervolumeStagnationLimit implements Predicate<EvolutionResult<?, ?>> {
+
+	private static final double REFERENCE = 1.1;
+
+	private final int window;
+	private final double threshold;
+	private final long maxGenerations;
+	// Best hypervolume so far of the last window + 1 generations (circular)
+	private final double[] history;
+	private long generations = 0;
+	private double bestHypervolume = 0;
+	// Orientation (1 minimized, -1 maximized) and normalization of the objectives, from the first generation
+	private double[] signs;
+	private double[] ideal;
+	private double[] range;
+	private double[] reference;
+
+	public HypervolumeStagnationLimit(int window, double threshold, long maxGenerations) {
+		if (window < 1)
+			throw new IllegalArgumentException("The window is at least one generation: " + window);
+		if (maxGenerations < 1)
+			throw new IllegalArgumentException("The hard cap is at least one generation: " + maxGenerations);
+		this.window = window;
+		this.threshold = threshold;
+		this.maxGenerations = maxGenerations;
+		this.history = new double[window + 1];
+	}
+
+	@Override
+	public boolean test(EvolutionResult<?, ?> result) {
+		final ISeq<Phenotype> population = (ISeq<Phenotype>) (ISeq) result.population();
+		if (this.signs == null)
+			normalization(population);
+		this.bestHypervolume = Math.max(this.bestHypervolume, Hypervolume.of(points(population), this.reference));
+		this.history[(int) (this.generations % this.history.length)] = this.bestHypervolume;
+		this.generations++;
+		if (this.generations >= this.maxGenerations)
+			return false;
+		if (this.generations <= this.window)
+			return true;
+		final double before = this.history[(int) (this.generations % this.history.length)];
+		final double improvement = this.bestHypervolume - before;
+		return improvement > this.threshold * Math.max(before, Double.MIN_NORMAL);
+	}
+
+	// Best hypervolume so far, normalized
+	public double getHypervolume() {
+		return bestHypervolume;
+	}
+
+	public long getGenerations() {
+		return generations;
+	}
+
+	private void normalization(ISeq<Phenotype> population) {
+		this.signs = Fronts.signs((Vec<double[]>) population.get(0).fitness());
+		final int dimension = this.signs.length;
+		this.ideal = new double[dimension];
+		double[] nadir = new double[dimension];
+		Arrays.fill(this.ideal, Double.POSITIVE_INFINITY);
+		Arrays.fill(nadir, Double.NEGATIVE_INFINITY);
+		for (Phenotype phenotype : population) {
+			final double[] data = (double[]) ((Vec) phenotype.fitness()).data();
+			for (int i = 0; i < dimension; i++) {
+				this.ideal[i] = Math.min(this.ideal[i], this.signs[i] * data[i]);
+				nadir[i] = Math.max(nadir[i], this.signs[i] * data[i]);
+			}
+		}
+		this.range = new double[dimension];
+		for (int i = 0; i < dimension; i++)
+			this.range[i] = nadir[i] > this.ideal[i] ? nadir[i] - this.ideal[i] : 1;
+		this.reference = new double[dimension];
+		Arrays.fill(this.reference, REFERENCE);
+	}
+
+	// Oriented and normalized objectives of the population
+	private double[][] points(ISeq<Phenotype> population) {
+		final int dimension = this.signs.length;
+		double[][] points = new double[population.size()][dimension];
+		for (int p = 0; p < points.length; p++) {
+			final double[] data = (double[]) ((Vec) population.get(p).fitness()).data();
+			for (int i = 0; i < dimension; i++)
+				points[p][i] = (this.signs[i] * data[i] - this.ideal[i]) / this.range[i];
+		}
+		return points;
+	}
+}
@@ -0,0 +1,234 @@
+package org.module.eer.jenetics.split.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collector;
+
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.ext.moea.MOEA;
+import io.jenetics.ext.moea.Pareto;
+import io.jenetics.ext.moea.Vec;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * Island model of the runs of a multi-objective split. Every island is an engine with its own
+ * population, and the islands evolve in parallel on a shared executor. The engine of an island is
+ * built on the island, in its random scope, since building an engine draws random numbers (the
+ * genotype of the encoding). Every migrationInterval
+ * generations the islands stop at a barrier and every island sends numberOfMigrants elite individuals
+ * (random members of the non-dominated front of its population) to the next island of the ring or to
+ * a random island, where they replace the individuals of the worst Pareto ranks. The migrations
+ * happen between the generations, on the calling thread, so a seeded model is reproducible. A
+ * migration interval of 0 gives independent islands, the runs of the split without migration.
+ * Every island collects the Pareto set of its generations (MOEA.toParetoSet) and the result is the
+ * merged Pareto set of the islands. With a SplitBudget, the islands stop after the generation in
+ * which the budget is exhausted, and the result is the merged Pareto set so far.
+ * */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class IslandModel {
+
+	public enum Topology {
+		// Island i sends its migrants to island i + 1
+		RING,
+		// Every island sends its migrants to another random island at every migration
+		RANDOM
+	}
+
+	private static final Comparator<Phenotype> DOMINANCE = (a, b) -> ((Vec) a.fitness()).dominance((Vec) b.fitness());
+
+	private final int numberOfIslands;
+	// New engine of an island, at every evolve
+	private final Supplier<Engine> engineFactory;
+	private final Executor executor;
+	// Generations between two migrations, 0 for independent islands
+	private int migrationInterval = 10;
+	private int numberOfMigrants = 5;
+	private Topology topology = Topology.RING;
+	// Seed of reproducible islands (see ReproducibleRuns), null for unseeded islands
+	private Long seed = null;
+
+	public IslandModel(int numberOfIslands, Supplier<Engine> engineFactory, Executor executor) {
+		if (numberOfIslands < 1)
+			throw new IllegalArgumentException("An island model needs at least one island: " + numberOfIslands);
+		this.numberOfIslands = numberOfIslands;
+		this.engineFactory = engineFactory;
+		this.executor = executor;
+	}
+
+	/*
+	 * Evolves every island for the given number of generations, returns the merged Pareto set
+	 * */
+	public ISeq<Phenotype> evolve(long generations) {
+		return evolve(generations, SplitBudget.unlimited());
+	}
+
+	public ISeq<Phenotype> evolve(long generations, SplitBudget budget) {
+		if (generations < 1)
+			throw new IllegalArgumentException("The islands evolve for at least one generation: " + generations);
+		final int numberOfIslands = this.numberOfIslands;
+		// One random generator per island and one for the migrations, split from the seed
+		final RandomGenerator[] randoms = this.seed != null
+				? ReproducibleRuns.randoms(this.seed, numberOfIslands + 1)
+				: new RandomGenerator[numberOfIslands + 1];
+		final RandomGenerator migrationRandom = randoms[numberOfIslands] != null ? randoms[numberOfIslands]
+				: RandomRegistry.random();
+		final Collector collector = MOEA.toParetoSet();
+		final Engine[] engines = new Engine[numberOfIslands];
+		final Object[] fronts = new Object[numberOfIslands];
+		final EvolutionStart[] starts = new EvolutionStart[numberOfIslands];
+		for (int i = 0; i < numberOfIslands; i++) {
+			fronts[i] = collector.supplier().get();
+			starts[i] = EvolutionStart.of(ISeq.empty(), 1);
+		}
+		long generation = 0;
+		while (generation < generations) {
+			final long epoch = this.migrationInterval > 0
+					? Math.min(this.migrationInterval, generations - generation)
+					: generations - generation;
+			List<FutureTask<EvolutionStart>> tasks = new ArrayList<FutureTask<EvolutionStart>>(numberOfIslands);
+			for (int i = 0; i < numberOfIslands; i++) {
+				final int island = i;
+				FutureTask<EvolutionStart> task = new FutureTask<EvolutionStart>(
+						() -> ReproducibleRuns.run(randoms[island], () -> {
+							if (engines[island] == null)
+								engines[island] = this.engineFactory.get();
+							return evolve(engines[island], starts[island], collector, fronts[island], epoch, budget);
+						}));
+				this.executor.execute(task);
+				tasks.add(task);
+			}
+			for (int i = 0; i < numberOfIslands; i++)
+				starts[i] = await(tasks.get(i));
+			generation += epoch;
+			if (budget.isExhausted() == true)
+				break;
+			if (generation < generations && this.migrationInterval > 0 && numberOfIslands > 1)
+				migrate(starts, migrationRandom);
+		}
+		Object merged = fronts[0];
+		for (int i = 1; i < numberOfIslands; i++)
+			merged = collector.combiner().apply(merged, fronts[i]);
+		return (ISeq<Phenotype>) collector.finisher().apply(merged);
+	}
+
+	// Generations of an island between two migrations, the Pareto set of the island collects them
+	private static EvolutionStart evolve(Engine engine, EvolutionStart start, Collector collector, Object front,
+			long generations, SplitBudget budget) {
+		for (long generation = 0; generation < generations; generation++) {
+			EvolutionResult result = engine.evolve(start);
+			collector.accumulator().accept(front, result);
+			start = result.next();
+			if (budget.isExhausted() == true)
+				break;
+		}
+		return start;
+	}
+
+	private static EvolutionStart await(FutureTask<EvolutionStart> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The island model was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("An island failed", e.getCause());
+		}
+	}
+
+	private void migrate(EvolutionStart[] starts, RandomGenerator random) {
+		final int numberOfIslands = starts.length;
+		// The migrants leave before any island receives migrants
+		ISeq<Phenotype>[] migrants = new ISeq[numberOfIslands];
+		for (int i = 0; i < numberOfIslands; i++)
+			migrants[i] = elite(starts[i].population(), random);
+		MSeq<Phenotype>[] populations = new MSeq[numberOfIslands];
+		int[][] worst = new int[numberOfIslands][];
+		int[] replaced = new int[numberOfIslands];
+		for (int i = 0; i < numberOfIslands; i++) {
+			populations[i] = starts[i].population().copy();
+			worst[i] = worst(starts[i].population());
+		}
+		for (int i = 0; i < numberOfIslands; i++) {
+			final int target = this.topology == Topology.RING
+					? (i + 1) % numberOfIslands
+					: (i + 1 + random.nextInt(numberOfIslands - 1)) % numberOfIslands;
+			for (Phenotype migrant : migrants[i]) {
+				if (replaced[target] == worst[target].length)
+					break;
+				populations[target].set(worst[target][replaced[target]++], migrant);
+			}
+		}
+		for (int i = 0; i < numberOfIslands; i++)
+			starts[i] = EvolutionStart.of((ISeq) populations[i].toISeq(), starts[i].generation());
+	}
+
+	// Random members of the non-dominated front of the population
+	private ISeq<Phenotype> elite(ISeq<Phenotype> population, RandomGenerator random) {
+		final MSeq<Phenotype> front = Pareto.front(population, DOMINANCE).copy();
+		final int size = Math.min(this.numberOfMigrants, front.size());
+		for (int i = 0; i < size; i++)
+			front.swap(i, i + random.nextInt(front.size() - i));
+		return front.subSeq(0, size).toISeq();
+	}
+
+	// Indexes of the population from the worst Pareto rank to the best one
+	private static int[] worst(ISeq<Phenotype> population) {
+		final int[] ranks = Pareto.rank(population, DOMINANCE);
+		Integer[] indexes = new Integer[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			indexes[i] = i;
+		Arrays.sort(indexes, (a, b) -> Integer.compare(ranks[b], ranks[a]));
+		int[] worst = new int[indexes.length];
+		for (int i = 0; i < indexes.length; i++)
+			worst[i] = indexes[i];
+		return worst;
+	}
+
+	public int getNumberOfIslands() {
+		return numberOfIslands;
+	}
+
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+
+	public void setMigrationInterval(int migrationInterval) {
+		this.migrationInterval = migrationInterval;
+	}
+
+	public int getNumberOfMigrants() {
+		return numberOfMigrants;
+	}
+
+	public void setNumberOfMigrants(int numberOfMigrants) {
+		this.numberOfMigrants = numberOfMigrants;
+	}
+
+	public Topology getTopology() {
+		return topology;
+	}
+
+	public void setTopology(Topology topology) {
+		this.topology = topology;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+}
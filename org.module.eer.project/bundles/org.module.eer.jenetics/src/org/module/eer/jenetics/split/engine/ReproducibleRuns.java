@@ -0,0 +1,37 @@
+package org.module.eer.jenetics.split.engine;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * Seeded, reproducible runs. A single seed is split into one SplittableRandom per run (in the order
+ * of the runs) and every run draws all its random numbers (genotype factory, alterers, selectors,
+ * repair) from its own generator through the RandomRegistry of its thread. The runs share no random
+ * generator, so the parallel runs do not contend for one. The engine of a seeded run has to execute on
+ * the thread of the run (Engine.Builder.executor(Runnable::run)), otherwise the order of the draws
+ * depends on the scheduling of the pool.
+ * */
+public final class ReproducibleRuns {
+
+	private ReproducibleRuns() {
+	}
+
+	// Random generator of every run
+	public static RandomGenerator[] randoms(long seed, int numberOfRuns) {
+		final SplittableRandom root = new SplittableRandom(seed);
+		RandomGenerator[] randoms = new RandomGenerator[numberOfRuns];
+		for (int run = 0; run < numberOfRuns; run++)
+			randoms[run] = root.split();
+		return randoms;
+	}
+
+	// Runs with the random generator in the RandomRegistry of the thread, unseeded when it is null
+	public static <T> T run(RandomGenerator random, Supplier<T> run) {
+		if (random == null)
+			return run.get();
+		return RandomRegistry.with(random, r -> run.get());
+	}
+}
@@ -0,0 +1,67 @@
+package org.module.eer.jenetics.split.engine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.jenetics.engine.EvolutionResult;
+
+/*
+ * Wall-clock budget and cancellation token of a split. The runs check it between two generations
+ * (EvolutionStream.limit(budget::proceed) or IslandModel) and stop cooperatively once the time limit
+ * is over or the token is cancelled, the split returns the Pareto set accumulated so far (at least
+ * the first generation). The budgets made by withTimeLimit share the cancellation token of their
+ * budget, so one token can stop a batch of splits that each has its own time limit. A budget is
+ * thread-safe, the parallel runs of a split share it.
+ * */
+public final class SplitBudget {
+
+	private final AtomicBoolean cancelled;
+	// System.nanoTime() of the end of the time limit, only when timeLimited
+	private final long deadline;
+	private final boolean timeLimited;
+
+	private SplitBudget(AtomicBoolean cancelled, long deadline, boolean timeLimited) {
+		this.cancelled = cancelled;
+		this.deadline = deadline;
+		this.timeLimited = timeLimited;
+	}
+
+	// No time limit, until it is cancelled
+	public static SplitBudget unlimited() {
+		return new SplitBudget(new AtomicBoolean(), 0, false);
+	}
+
+	// Time limit from now
+	public static SplitBudget of(Duration timeLimit) {
+		return unlimited().withTimeLimit(timeLimit);
+	}
+
+	// Budget with the cancellation token of this budget and a time limit from now
+	public SplitBudget withTimeLimit(Duration timeLimit) {
+		if (timeLimit.isNegative())
+			throw new IllegalArgumentException("Negative time limit: " + timeLimit);
+		return new SplitBudget(this.cancelled, System.nanoTime() + timeLimit.toNanos(), true);
+	}
+
+	public void cancel() {
+		this.cancelled.set(true);
+	}
+
+	public boolean isCancelled() {
+		return this.cancelled.get();
+	}
+
+	// Cancelled or out of time
+	public boolean isExhausted() {
+		return this.cancelled.get() == true || (this.timeLimited == true && System.nanoTime() - this.deadline >= 0);
+	}
+
+	/*
+	 * Predicate of EvolutionStream.limit, the stream proceeds while the budget is not exhausted. The
+	 * first generation is always kept, so a run returns a front even when its budget ran out before
+	 * its first generation was over.
+	 * */
+	public boolean proceed(Object result) {
+		return ((EvolutionResult<?, ?>) result).generation() <= 1 || isExhausted() == false;
+	}
+}
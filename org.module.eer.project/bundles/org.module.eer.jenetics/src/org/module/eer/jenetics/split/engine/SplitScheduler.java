@@ -0,0 +1,150 @@
+package org.module.eer.jenetics.split.engine;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Threads of the splitting subsystem, bounded by one parallelism budget: a pool of parallelism named
+ * threads ("module-eer-N") and as many permits, every task of the pool holds one of them. The runs
+ * of a split wait in the queue of the scheduler until a permit is free. The fitness evaluation of an
+ * engine goes to the executor of engineExecutor(): on a thread of the pool the engine evaluates on
+ * that thread, since its run already holds a permit, otherwise (a single run, as the hierarchical
+ * split) every evaluation task takes a free permit and goes to the pool, or it is evaluated on the
+ * calling thread when all the permits are taken. So a lone engine uses the whole budget when no run
+ * is active and it still makes progress while a compare split takes every permit, and the pool never
+ * holds more than parallelism threads, instead of a new pool of 30 threads per split plus the common
+ * ForkJoinPool of every engine. The threads are daemon threads and they start on demand. close()
+ * rejects new runs and shuts the pool down once the submitted runs finish, the default scheduler is
+ * shared by all the splitters that do not get their own scheduler.
+ * */
+public final class SplitScheduler implements AutoCloseable {
+
+	private static SplitScheduler defaultScheduler;
+
+	private final int parallelism;
+	private final ExecutorService pool;
+	// Shared by the runs and the evaluation tasks, one permit per thread of the pool
+	private final Semaphore permits;
+	// Runs waiting for a permit
+	private final Queue<Runnable> pendingRuns = new ConcurrentLinkedQueue<Runnable>();
+	private volatile boolean closed = false;
+
+	public SplitScheduler(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("The parallelism of a scheduler is at least 1: " + parallelism);
+		this.parallelism = parallelism;
+		this.permits = new Semaphore(parallelism);
+		final AtomicInteger threads = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new WorkerThread(this, runnable, "module-eer-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Scheduler of the splitters without their own scheduler, one thread per processor
+	public static synchronized SplitScheduler getDefault() {
+		if (defaultScheduler == null || defaultScheduler.isShutdown())
+			defaultScheduler = new SplitScheduler(Runtime.getRuntime().availableProcessors());
+		return defaultScheduler;
+	}
+
+	// Whole budget, the threads of the pool
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	// Run of a split, it starts when a permit is free
+	public <T> Future<T> submit(Callable<T> run) {
+		final FutureTask<T> task = new FutureTask<T>(run);
+		runExecutor().execute(task);
+		return task;
+	}
+
+	// Executor of the runs (or islands) of a split
+	public Executor runExecutor() {
+		return run -> {
+			if (this.closed == true)
+				throw new RejectedExecutionException("The scheduler is closed");
+			this.pendingRuns.add(run);
+			dispatch();
+		};
+	}
+
+	// Executor of the fitness evaluation and the alterers of an engine built on the current thread
+	public Executor engineExecutor() {
+		final Thread thread = Thread.currentThread();
+		if (thread instanceof WorkerThread && ((WorkerThread) thread).scheduler == this)
+			return Runnable::run;
+		return task -> {
+			if (this.permits.tryAcquire() == false || execute(task) == false)
+				task.run();
+		};
+	}
+
+	public boolean isShutdown() {
+		return this.closed;
+	}
+
+	// The submitted runs finish, no new run is accepted
+	@Override
+	public void close() {
+		this.closed = true;
+		terminateWhenIdle();
+	}
+
+	// Starts the pending runs while there are free permits
+	private void dispatch() {
+		while (this.pendingRuns.isEmpty() == false && this.permits.tryAcquire()) {
+			final Runnable run = this.pendingRuns.poll();
+			if (run == null)
+				this.permits.release();
+			else if (execute(run) == false)
+				throw new RejectedExecutionException("The scheduler is closed");
+		}
+	}
+
+	// Runs the task on the pool with a permit already taken, the permit is released at the end
+	private boolean execute(Runnable task) {
+		try {
+			this.pool.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					this.permits.release();
+					dispatch();
+					terminateWhenIdle();
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			this.permits.release();
+			return false;
+		}
+	}
+
+	private void terminateWhenIdle() {
+		if (this.closed == true && this.pendingRuns.isEmpty() == true
+				&& this.permits.availablePermits() == this.parallelism)
+			this.pool.shutdown();
+	}
+
+	private static final class WorkerThread extends Thread {
+
+		private final SplitScheduler scheduler;
+
+		WorkerThread(SplitScheduler scheduler, Runnable runnable, String name) {
+			super(runnable, name);
+			this.scheduler = scheduler;
+		}
+	}
+}
@@ -9,15 +9,15 @@ import io.jenetics.Genotype;
 
 public class CRAIndexNumberOfModules implements Function<Genotype, Double>{
 	
-	private EList<ModularizableElement> modularizableElements;
+	private CRAIndexFF craIndexFF;
 		
 	public CRAIndexNumberOfModules(EList<ModularizableElement> modularizableElements) {
-		this.modularizableElements = modularizableElements;		
+		this.craIndexFF = new CRAIndexFF(modularizableElements);		
 	}
 
 	@Override
 	public Double apply(Genotype genotype) {
-		double craIndexNormalize = new CRAIndexFF(this.modularizableElements).apply(genotype);
+		double craIndexNormalize = this.craIndexFF.apply(genotype);
 		double numberOfClusters = new NumberOfClustersFF().apply(genotype);		
 		double balance = 1 - new CoefficientOfVariabilityFF().apply(genotype);
 		return craIndexNormalize * numberOfClusters * balance;
@@ -0,0 +1,104 @@
+package org.module.eer.jenetics.split.ff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.module.eer.jenetics.config.utils.CanonicalPartition;
+
+import io.jenetics.Genotype;
+
+/*
+ * Fitness memo cache in front of an evaluator. Genotypes that encode the same partition have the
+ * same objectives, so the cache is keyed by the CanonicalPartition of the genotype and bounded to
+ * maxEntries partitions, evicting the least recently used. It is safe to share among the evaluation
+ * threads of the engine (and among engines of the same model). The averages over modules are summed
+ * in the order of the genotype, so the cached value of a partition is the value of the first of its
+ * genotypes evaluated and can differ from the value of another one in the last bits: a cache changes
+ * the results and is only used when it is enabled on the splitter.
+ * */
+@SuppressWarnings("rawtypes")
+public class CachedFF<T> implements Function<Genotype, T> {
+
+	public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+	private final Function<Genotype, T> fitnessFunction;
+	private final Map<CanonicalPartition, T> cache;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	public CachedFF(Function<Genotype, T> fitnessFunction) {
+		this(fitnessFunction, DEFAULT_MAX_ENTRIES);
+	}
+
+	@SuppressWarnings("serial")
+	public CachedFF(Function<Genotype, T> fitnessFunction, final int maxEntries) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("The cache needs at least one entry: " + maxEntries);
+		this.fitnessFunction = fitnessFunction;
+		this.cache = new LinkedHashMap<CanonicalPartition, T>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CanonicalPartition, T> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	/*
+	 * Cache in front of another evaluator of the same objectives (e.g. the evaluator of one run) that
+	 * shares the entries and the counters of the given cache
+	 * */
+	public CachedFF(Function<Genotype, T> fitnessFunction, CachedFF<T> sharedCache) {
+		this.fitnessFunction = fitnessFunction;
+		this.cache = sharedCache.cache;
+		this.hits = sharedCache.hits;
+		this.misses = sharedCache.misses;
+	}
+
+	@Override
+	public T apply(Genotype genotype) {
+		final CanonicalPartition partition = CanonicalPartition.of(genotype);
+		T fitness;
+		synchronized (this.cache) {
+			fitness = this.cache.get(partition);
+		}
+		if (fitness != null) {
+			this.hits.incrementAndGet();
+			return fitness;
+		}
+		this.misses.incrementAndGet();
+		// Evaluated out of the lock, concurrent misses of the same partition compute the same value
+		fitness = this.fitnessFunction.apply(genotype);
+		synchronized (this.cache) {
+			this.cache.put(partition, fitness);
+		}
+		return fitness;
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public double getHitRatio() {
+		long total = getHits() + getMisses();
+		return total == 0 ? 0.0 : (double) getHits() / total;
+	}
+
+	public int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "hits = " + getHits() + ", misses = " + getMisses() + ", hit ratio = " + String.format("%.3f", getHitRatio());
+	}
+}
@@ -1,10 +1,12 @@
 package org.module.eer.jenetics.split.ff;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.function.Function;
 
-import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
+import org.module.eer.jenetics.config.utils.ModuleGraph;
+import org.module.eer.jenetics.config.utils.PackedAdjacency;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
 import org.module.eer.mm.moduleeer.ModularizableElement;
 
 import io.jenetics.BitChromosome;
@@ -14,64 +16,116 @@ import io.jenetics.PermutationChromosome;
 @SuppressWarnings("rawtypes")
 public class GraphCohesion implements Function<Genotype, Double> {
 
-	private EList<ModularizableElement> nodes;
-	private boolean[][] edges;
+	private PackedAdjacency adjacency;
+	// Weighted graph, null when the connections are counted on the packed adjacency
+	private ModuleGraph weightedGraph;
+	// Working buffers, one per evaluation thread
+	private ThreadLocal<int[]> elements;
+	// {moduleOf, starts of the modules} of the grouping encoding
+	private ThreadLocal<int[][]> groupingBuffers;
+	private ThreadLocal<long[]> membership;
 
 	public GraphCohesion(EList<ModularizableElement> nodes, boolean[][] edges) {
-		this.nodes = nodes;
-		this.edges = edges;
+		this(ModuleGraph.of(edges));
+	}
+
+	/*
+	 * The cohesion of a module of a weighted graph is the weight of its edges over the weight of the
+	 * possible connections, all of them as strong as the strongest edge of the graph, so the cohesion
+	 * stays in [0, 1] like the coupling
+	 * */
+	public GraphCohesion(ModuleGraph graph) {
+		this(graph.isWeighted() ? null : graph.packedAdjacency(), graph.isWeighted() ? graph : null, graph.size());
+	}
+
+	public GraphCohesion(PackedAdjacency adjacency) {
+		this(adjacency, null, adjacency.size());
+	}
+
+	private GraphCohesion(PackedAdjacency adjacency, ModuleGraph weightedGraph, final int size) {
+		this.adjacency = adjacency;
+		this.weightedGraph = weightedGraph;
+		this.elements = ThreadLocal.withInitial(() -> new int[size]);
+		this.membership = ThreadLocal.withInitial(() -> new long[PackedAdjacency.wordsFor(size)]);
+		this.groupingBuffers = ThreadLocal.withInitial(() -> new int[][] { new int[size],
+				new int[size + 1] });
 	}
 
 	@SuppressWarnings({ "unchecked" })
 	@Override
 	public Double apply(Genotype genotype) {
+		if (GroupingEncoding.isGroupingEncoded(genotype))
+			return applyGrouping(genotype);
 		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) genotype.get(0);
 		final BitChromosome bc = (BitChromosome) genotype.get(1);
-		List<List<Integer>> modules = new BasicEList<List<Integer>>();
-		List<Integer> currentModule = new BasicEList<Integer>();
-		modules.add(currentModule);
-		for (int i = 0; i < bc.length(); i++) {
-			Integer index = pc.get(i).alleleIndex();
-			currentModule.add(index);
-			if (bc.get(i).bit() == true) {
-				// new module
-				currentModule = new BasicEList<Integer>();
-				modules.add(currentModule);
+		final int[] elements = this.elements.get();
+		final long[] membership = this.membership.get();
+		// Modules are consecutive in the permutation, one membership bitset is reused for all of them
+		double sum = 0;
+		int numberOfModules = 0;
+		int start = 0;
+		for (int i = 0; i < pc.length(); i++) {
+			int index = pc.get(i).alleleIndex();
+			elements[i] = index;
+			membership[index >>> 6] |= 1L << index;
+			if (i == pc.length() - 1 || bc.get(i).bit() == true) {
+				// end of the module
+				sum += moduleCohesion(elements, start, i + 1, membership);
+				numberOfModules++;
+				start = i + 1;
 			}
 		}
-		// Add to the last module, the last element
-		Integer index = pc.get(pc.length() - 1).alleleIndex();
-		currentModule.add(index);
-		return calculateCohesion(modules);
+		return numberOfModules == 0 ? 0.0 : sum / numberOfModules;
 	}
 
-	private Double calculateCohesion(List<List<Integer>> modules) {
-		if (modules.size() == 0) {
-			return 0.0;
-		}
+	/*
+	 * The elements are grouped by module (counting sort of the labels) and every module is
+	 * evaluated as a consecutive range
+	 * */
+	private Double applyGrouping(Genotype genotype) {
+		final int[] elements = this.elements.get();
+		final long[] membership = this.membership.get();
+		final int[][] buffers = this.groupingBuffers.get();
+		final int[] moduleOf = buffers[0];
+		final int[] starts = buffers[1];
+		final int numberOfModules = GroupingEncoding.decode(genotype, moduleOf);
+		Arrays.fill(starts, 0, numberOfModules + 1, 0);
+		for (int elementId = 0; elementId < moduleOf.length; elementId++)
+			starts[moduleOf[elementId] + 1]++;
+		for (int module = 0; module < numberOfModules; module++)
+			starts[module + 1] += starts[module];
+		for (int elementId = 0; elementId < moduleOf.length; elementId++)
+			elements[starts[moduleOf[elementId]]++] = elementId;
+		// starts[module] is now the end of the module
 		double sum = 0;
-		for (List<Integer> currentSet : modules) {
-			int possibleConnections = currentSet.size() * (currentSet.size() - 1) / 2;
-			if (possibleConnections == 0) {
-				continue;
-			}
-			int actualConnections = calculateConnections(currentSet);
-			double moduleCohesion = (double) actualConnections / possibleConnections;
-			sum += moduleCohesion;
+		int start = 0;
+		for (int module = 0; module < numberOfModules; module++) {
+			for (int i = start; i < starts[module]; i++)
+				membership[elements[i] >>> 6] |= 1L << elements[i];
+			sum += moduleCohesion(elements, start, starts[module], membership);
+			start = starts[module];
 		}
-		double totalCohesion = sum / modules.size();
-		return totalCohesion;
+		return numberOfModules == 0 ? 0.0 : sum / numberOfModules;
 	}
 
-	private int calculateConnections(List<Integer> indices) {
-		int connections = 0;
-		for (int i = 0; i < indices.size(); i++) {
-			for (int j = i + 1; j < indices.size(); j++) {
-				if(edges[indices.get(i)][indices.get(j)]) {
-					connections++;
-				}
+	private double moduleCohesion(int[] elements, int from, int to, long[] membership) {
+		int size = to - from;
+		int possibleConnections = size * (size - 1) / 2;
+		double moduleCohesion = 0;
+		if (possibleConnections != 0) {
+			if (this.weightedGraph != null) {
+				final double maxWeight = this.weightedGraph.maxWeight();
+				if (maxWeight > 0)
+					moduleCohesion = this.weightedGraph.weightWithin(elements, from, to, membership)
+							/ (possibleConnections * maxWeight);
+			} else {
+				int actualConnections = this.adjacency.connectionsWithin(elements, from, to, membership);
+				moduleCohesion = (double) actualConnections / possibleConnections;
 			}
 		}
-		return connections;
+		// Clear the membership bitset for the next module
+		for (int i = from; i < to; i++)
+			membership[elements[i] >>> 6] = 0;
+		return moduleCohesion;
 	}
 }
\ No newline at end of file
@@ -8,18 +8,24 @@ import io.jenetics.ext.moea.VecFactory;
 import java.util.function.Function;
 
 import org.eclipse.emf.common.util.EList;
+import org.module.eer.jenetics.config.utils.ModuleGraph;
 import org.module.eer.jenetics.utils.Cohesive;
 import org.module.eer.mm.moduleeer.ModularizableElement;
 
 @SuppressWarnings("rawtypes")
 public class GraphCohesionCouplingFF implements Function<Genotype, Vec<double[]>>{
 	
-	private EList<ModularizableElement> nodes;
-	private boolean[][] edges;
+	private GraphCohesion graphCohesion;
+	private GraphCoupling graphCoupling;
 	
 	public GraphCohesionCouplingFF(EList<ModularizableElement> nodes, boolean[][] edges) {
-		this.nodes = nodes;
-		this.edges = edges;
+		this(nodes, ModuleGraph.of(edges));
+	}
+
+	// The graph is built once per model and shared by both objectives
+	public GraphCohesionCouplingFF(EList<ModularizableElement> nodes, ModuleGraph graph) {
+		this.graphCohesion = new GraphCohesion(graph);
+		this.graphCoupling = new GraphCoupling(graph);
 	}
 	
 	private static final VecFactory<double[]> VEC_FACTORY =
@@ -31,8 +37,8 @@ public class GraphCohesionCouplingFF implements Function<Genotype, Vec<double[]>
 	@Override
 	public Vec<double[]> apply(Genotype genotype) {	
 		return VEC_FACTORY.newVec(new double[] {
-				new GraphCohesion(this.nodes, this.edges).apply(genotype),
-				new GraphCoupling(this.nodes, this.edges).apply(genotype)
+				this.graphCohesion.apply(genotype),
+				this.graphCoupling.apply(genotype)
 			});
 	}
 }
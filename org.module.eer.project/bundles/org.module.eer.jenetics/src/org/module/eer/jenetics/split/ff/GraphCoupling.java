@@ -1,60 +1,52 @@
 package org.module.eer.jenetics.split.ff;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
+
 import org.eclipse.emf.common.util.EList;
+import org.module.eer.jenetics.config.utils.ModuleGraph;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
 import org.module.eer.mm.moduleeer.ModularizableElement;
 
-import io.jenetics.BitChromosome;
 import io.jenetics.Genotype;
-import io.jenetics.PermutationChromosome;
 
 @SuppressWarnings("rawtypes")
 public class GraphCoupling implements Function<Genotype, Double> {
 
-	private EList<ModularizableElement> nodes;
-	private boolean[][] edges;
+	private ModuleGraph graph;
+	// Module of every element, one buffer per evaluation thread
+	private ThreadLocal<int[]> moduleOf;
 
 	public GraphCoupling(EList<ModularizableElement> nodes, boolean[][] edges) {
-		this.nodes = nodes;
-		this.edges = edges;
+		this(ModuleGraph.of(edges));
+	}
+
+	public GraphCoupling(ModuleGraph graph) {
+		this.graph = graph;
+		this.moduleOf = ThreadLocal.withInitial(() -> new int[graph.size()]);
 	}
 
-	@SuppressWarnings({ "unchecked" })
 	@Override
 	public Double apply(Genotype genotype) {
-		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) genotype.get(0);
-		final BitChromosome bc = (BitChromosome) genotype.get(1);
-		Map<Integer, Integer> moduleMap = new HashMap<>();
-		int moduleNumber = 0;
-		for (int i = 0; i < bc.length(); i++) {
-			Integer index = pc.get(i).alleleIndex();
-			moduleMap.put(index, moduleNumber);
-			if (bc.get(i).bit() == true) {
-				// new module
-				moduleNumber++;
-			}
-		}
-		// Add to the last module, the last element
-		Integer index = pc.get(pc.length() - 1).alleleIndex();
-		moduleMap.put(index, moduleNumber);
-		return calculateCoupling(moduleMap);
+		final int[] moduleOf = this.moduleOf.get();
+		GroupingEncoding.decode(genotype, moduleOf);
+		return calculateCoupling(moduleOf);
 	}
 
-	private Double calculateCoupling(Map<Integer, Integer> moduleMap) {
-		int totalEdges = 0;
-		int interEdges = 0;
-		for (int i = 0; i < edges.length; i++) {
-			for (int j = i + 1; j < edges.length; j++) {
-				if(edges[i][j]) {
-					totalEdges++;
-					if(!moduleMap.get(i).equals(moduleMap.get(j))) {
-						interEdges++;
-					}
-				}
+	// One pass over the edge list, the total number (or weight) of the edges is cached in the graph
+	private Double calculateCoupling(int[] moduleOf) {
+		if (this.graph.isWeighted()) {
+			double interWeight = 0;
+			for (int e = 0; e < this.graph.numberOfEdges(); e++) {
+				if (moduleOf[this.graph.from(e)] != moduleOf[this.graph.to(e)])
+					interWeight += this.graph.weight(e);
 			}
+			return interWeight / this.graph.totalWeight();
+		}
+		int interEdges = 0;
+		for (int e = 0; e < this.graph.numberOfEdges(); e++) {
+			if (moduleOf[this.graph.from(e)] != moduleOf[this.graph.to(e)])
+				interEdges++;
 		}
-		return (double) interEdges / totalEdges;
+		return (double) interEdges / this.graph.numberOfEdges();
 	}
 }
@@ -0,0 +1,139 @@
+package org.module.eer.jenetics.split.ff;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.module.eer.jenetics.config.utils.ModuleGraph;
+import org.module.eer.jenetics.config.utils.PartitionState;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Chromosome;
+import io.jenetics.Genotype;
+import io.jenetics.PermutationChromosome;
+import io.jenetics.ext.moea.Vec;
+
+/*
+ * Incremental (delta) evaluation. The PartitionState of the last poolSize evaluated genotypes is kept
+ * in a pool keyed by the identity of their chromosomes, when an offspring still shares one chromosome
+ * with an evaluated parent (the other one was only swapped or flipped by the mutators) and differs
+ * from it in at most maxChanges genes, a copy of the parent state is updated through the touched
+ * modules and their incident edges. Otherwise the state is built from scratch. The pool is locked
+ * for a lookup and for a store, both in constant time, so the evaluator can be shared by the
+ * evaluation threads of an engine (one evaluator per run). With verification enabled (system property
+ * org.module.eer.jenetics.incremental.verify) every result is cross-checked against the full
+ * evaluation.
+ * */
+@SuppressWarnings("rawtypes")
+public abstract class IncrementalFF implements Function<Genotype, Vec<double[]>> {
+
+	public static final int DEFAULT_POOL_SIZE = 256;
+
+	private final ModuleGraph graph;
+	private final Function<Genotype, Vec<double[]>> fullEvaluation;
+	private final int maxChanges;
+	private final boolean verification;
+	// Two entries per state, one per chromosome, the oldest are evicted
+	private final Map<ChromosomeKey, PartitionState> pool;
+	private final AtomicLong incrementalEvaluations = new AtomicLong();
+	private final AtomicLong fullEvaluations = new AtomicLong();
+
+	protected IncrementalFF(ModuleGraph graph, Function<Genotype, Vec<double[]>> fullEvaluation) {
+		this(graph, fullEvaluation, Math.max(4, graph.size() / 10), DEFAULT_POOL_SIZE,
+				Boolean.getBoolean("org.module.eer.jenetics.incremental.verify"));
+	}
+
+	@SuppressWarnings("serial")
+	protected IncrementalFF(ModuleGraph graph, Function<Genotype, Vec<double[]>> fullEvaluation, int maxChanges,
+			int poolSize, boolean verification) {
+		this.graph = graph;
+		this.fullEvaluation = fullEvaluation;
+		this.maxChanges = maxChanges;
+		this.verification = verification;
+		final int maxEntries = 2 * poolSize;
+		this.pool = new LinkedHashMap<ChromosomeKey, PartitionState>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ChromosomeKey, PartitionState> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/*
+	 * Objectives of the decoded partition, the same values as the full evaluation
+	 * */
+	protected abstract Vec<double[]> objectives(PartitionState state);
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Vec<double[]> apply(Genotype genotype) {
+		// Only the permutation encoding is evaluated incrementally
+		if (GroupingEncoding.isGroupingEncoded(genotype))
+			return this.fullEvaluation.apply(genotype);
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) genotype.get(0);
+		final BitChromosome bc = (BitChromosome) genotype.get(1);
+		PartitionState state = null;
+		PartitionState parent = parentOf(pc, bc);
+		if (parent != null && parent.changesTo(pc, bc, this.maxChanges) >= 0) {
+			state = parent.copy();
+			state.updateTo(pc, bc);
+		}
+		if (state != null) {
+			this.incrementalEvaluations.incrementAndGet();
+		} else {
+			this.fullEvaluations.incrementAndGet();
+			state = PartitionState.of(this.graph, pc, bc);
+		}
+		Vec<double[]> objectives = objectives(state);
+		if (this.verification == true) {
+			double[] expected = this.fullEvaluation.apply(genotype).data();
+			if (!Arrays.equals(expected, objectives.data()))
+				throw new IllegalStateException("Incremental evaluation " + Arrays.toString(objectives.data()) +
+						" differs from the full evaluation " + Arrays.toString(expected));
+		}
+		synchronized (this.pool) {
+			this.pool.put(new ChromosomeKey(pc), state);
+			this.pool.put(new ChromosomeKey(bc), state);
+		}
+		return objectives;
+	}
+
+	// Evaluated state that shares one of the chromosomes
+	private PartitionState parentOf(PermutationChromosome<Integer> pc, BitChromosome bc) {
+		synchronized (this.pool) {
+			PartitionState state = this.pool.get(new ChromosomeKey(pc));
+			return state != null ? state : this.pool.get(new ChromosomeKey(bc));
+		}
+	}
+
+	public long getIncrementalEvaluations() {
+		return this.incrementalEvaluations.get();
+	}
+
+	public long getFullEvaluations() {
+		return this.fullEvaluations.get();
+	}
+
+	// Key of a chromosome by identity, equal chromosomes of different genotypes are different keys
+	private static final class ChromosomeKey {
+
+		private final Chromosome chromosome;
+
+		ChromosomeKey(Chromosome chromosome) {
+			this.chromosome = chromosome;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.chromosome);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof ChromosomeKey && ((ChromosomeKey) other).chromosome == this.chromosome;
+		}
+	}
+}
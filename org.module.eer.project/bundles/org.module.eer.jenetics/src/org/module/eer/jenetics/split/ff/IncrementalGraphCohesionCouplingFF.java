@@ -0,0 +1,61 @@
+package org.module.eer.jenetics.split.ff;
+
+import org.eclipse.emf.common.util.EList;
+import org.module.eer.jenetics.config.utils.ModuleGraph;
+import org.module.eer.jenetics.config.utils.PartitionState;
+import org.module.eer.mm.moduleeer.ModularizableElement;
+
+import io.jenetics.Optimize;
+import io.jenetics.ext.moea.Vec;
+import io.jenetics.ext.moea.VecFactory;
+
+/*
+ * Incremental evaluation of the objectives of GraphCohesionCouplingFF, the edges are counted so
+ * the graph has to be unweighted
+ * */
+public class IncrementalGraphCohesionCouplingFF extends IncrementalFF {
+
+	private static final VecFactory<double[]> VEC_FACTORY =
+			VecFactory.ofDoubleVec(
+				Optimize.MAXIMUM,//Cohesion
+				Optimize.MINIMUM//Coupling
+	);
+
+	private ModuleGraph graph;
+
+	public IncrementalGraphCohesionCouplingFF(EList<ModularizableElement> nodes, ModuleGraph graph) {
+		super(unweighted(graph), new GraphCohesionCouplingFF(nodes, graph));
+		this.graph = graph;
+	}
+
+	public IncrementalGraphCohesionCouplingFF(EList<ModularizableElement> nodes, ModuleGraph graph, int maxChanges,
+			int poolSize, boolean verification) {
+		super(unweighted(graph), new GraphCohesionCouplingFF(nodes, graph), maxChanges, poolSize, verification);
+		this.graph = graph;
+	}
+
+	private static ModuleGraph unweighted(ModuleGraph graph) {
+		if (graph.isWeighted())
+			throw new IllegalArgumentException("The incremental evaluation does not support weighted graphs");
+		return graph;
+	}
+
+	@Override
+	protected Vec<double[]> objectives(PartitionState state) {
+		// Same operations and order as GraphCohesion
+		double sum = 0;
+		for (int label = state.firstModule(); label >= 0; label = state.nextModule(label)) {
+			int size = state.sizeOf(label);
+			int possibleConnections = size * (size - 1) / 2;
+			if (possibleConnections == 0) {
+				continue;
+			}
+			sum += (double) state.intraEdgesOf(label) / possibleConnections;
+		}
+		int interEdges = this.graph.numberOfEdges() - state.intraEdges();
+		return VEC_FACTORY.newVec(new double[] {
+				sum / state.numberOfModules(),
+				(double) interEdges / this.graph.numberOfEdges()
+			});
+	}
+}
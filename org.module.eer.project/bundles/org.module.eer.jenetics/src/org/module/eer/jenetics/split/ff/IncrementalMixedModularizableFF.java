@@ -0,0 +1,62 @@
+package org.module.eer.jenetics.split.ff;
+
+import org.module.eer.jenetics.config.utils.ModularizableReferenceIndex;
+import org.module.eer.jenetics.config.utils.PartitionState;
+
+import io.jenetics.Optimize;
+import io.jenetics.ext.moea.Vec;
+import io.jenetics.ext.moea.VecFactory;
+
+/*
+ * Incremental evaluation of the objectives of MixedModularizableFF. The counted graph has one edge
+ * per reference that can be cohesive, so the cohesion is the number of edges inside of the modules.
+ * */
+public class IncrementalMixedModularizableFF extends IncrementalFF {
+
+	private static final VecFactory<double[]> VEC_FACTORY =
+			VecFactory.ofDoubleVec(
+				Optimize.MAXIMUM,//Cohesion
+				Optimize.MINIMUM,//Coupling
+				Optimize.MINIMUM,//Number of Modules
+				Optimize.MINIMUM, //Average Number of Modularizable Elements per Module
+				Optimize.MINIMUM//Standard deviation
+	);
+
+	private ModularizableReferenceIndex referenceIndex;
+	// Sizes of the modules in order, one buffer per evaluation thread
+	private ThreadLocal<int[]> elementsPerModule;
+
+	public IncrementalMixedModularizableFF(ModularizableReferenceIndex referenceIndex) {
+		super(referenceIndex.referenceGraph(), new MixedModularizableFF(referenceIndex));
+		init(referenceIndex);
+	}
+
+	public IncrementalMixedModularizableFF(ModularizableReferenceIndex referenceIndex, int maxChanges, int poolSize,
+			boolean verification) {
+		super(referenceIndex.referenceGraph(), new MixedModularizableFF(referenceIndex), maxChanges, poolSize,
+				verification);
+		init(referenceIndex);
+	}
+
+	private void init(ModularizableReferenceIndex referenceIndex) {
+		this.referenceIndex = referenceIndex;
+		final int size = referenceIndex.size();
+		this.elementsPerModule = ThreadLocal.withInitial(() -> new int[size]);
+	}
+
+	@Override
+	protected Vec<double[]> objectives(PartitionState state) {
+		final int[] elementsPerModule = this.elementsPerModule.get();
+		int numberOfClusters = 0;
+		for (int label = state.firstModule(); label >= 0; label = state.nextModule(label))
+			elementsPerModule[numberOfClusters++] = state.sizeOf(label);
+		int cohesion = state.intraEdges();
+		return VEC_FACTORY.newVec(new double[] {
+				cohesion,
+				this.referenceIndex.numberOfReferences() - cohesion,
+				numberOfClusters,
+				(double) (state.size()/numberOfClusters),
+				MixedModularizableFF.standardDeviation(elementsPerModule, numberOfClusters)
+			});
+	}
+}
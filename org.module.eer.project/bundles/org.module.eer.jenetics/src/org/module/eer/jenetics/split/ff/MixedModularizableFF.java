@@ -1,44 +1,124 @@
 package org.module.eer.jenetics.split.ff;
 
+import io.jenetics.BitChromosome;
 import io.jenetics.Genotype;
 import io.jenetics.Optimize;
+import io.jenetics.PermutationChromosome;
 import io.jenetics.ext.moea.Vec;
 import io.jenetics.ext.moea.VecFactory;
 
+import java.util.Arrays;
 import java.util.function.Function;
 
 import org.eclipse.emf.common.util.EList;
-import org.module.eer.jenetics.utils.Cohesive;
+import org.module.eer.jenetics.config.utils.ModularizableReferenceIndex;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
 import org.module.eer.mm.moduleeer.ModularizableElement;
 
+/*
+ * Fused evaluation of the five objectives from a single decoding of the genotype. The values are
+ * the same as composing CohesiveFF, NumberOfClustersFF, AverageClassesPerModule and BalancedFF.
+ * Genotypes of the grouping encoding are decoded from their labels.
+ * */
 @SuppressWarnings("rawtypes")
 public class MixedModularizableFF implements Function<Genotype, Vec<double[]>>{
-	
-	private EList<ModularizableElement> modularizableElements;
-		
+
+	private ModularizableReferenceIndex referenceIndex;
+	// Decoding buffers {moduleOf, elementsPerModule}, one per evaluation thread
+	private ThreadLocal<int[][]> buffers;
+
 	public MixedModularizableFF(EList<ModularizableElement> modularizableElements) {
-		this.modularizableElements = modularizableElements;		
+		this(ModularizableReferenceIndex.of(modularizableElements));
+	}
+
+	public MixedModularizableFF(ModularizableReferenceIndex referenceIndex) {
+		this.referenceIndex = referenceIndex;
+		final int size = referenceIndex.size();
+		this.buffers = ThreadLocal.withInitial(() -> new int[][] { new int[size], new int[size] });
 	}
-	
+
 	private static final VecFactory<double[]> VEC_FACTORY =
 			VecFactory.ofDoubleVec(
-				Optimize.MAXIMUM,//Cohesion	
+				Optimize.MAXIMUM,//Cohesion
 				Optimize.MINIMUM,//Coupling
 				Optimize.MINIMUM,//Number of Modules
 				Optimize.MINIMUM, //Average Number of Modularizable Elements per Module
 				Optimize.MINIMUM//Standard deviation
-	);	
-	
+	);
+
+	@SuppressWarnings("unchecked")
 	@Override
-	public Vec<double[]> apply(Genotype genotype) {	
-		CohesiveFF cohesiveFF = new CohesiveFF(this.modularizableElements);
-		Cohesive cohesiveData = cohesiveFF.apply(genotype);		
+	public Vec<double[]> apply(Genotype genotype) {
+		final int[][] buffer = this.buffers.get();
+		final int[] moduleOf = buffer[0];
+		final int[] elementsPerModule = buffer[1];
+		final int numberOfClusters;
+		if (GroupingEncoding.isGroupingEncoded(genotype)) {
+			numberOfClusters = GroupingEncoding.decode(genotype, moduleOf);
+			Arrays.fill(elementsPerModule, 0, numberOfClusters, 0);
+			for (int elementId = 0; elementId < moduleOf.length; elementId++)
+				elementsPerModule[moduleOf[elementId]]++;
+		} else {
+			final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) genotype.get(0);
+			final BitChromosome bc = (BitChromosome) genotype.get(1);
+			// Decode
+			int currentModule = 0;
+			elementsPerModule[currentModule] = 0;
+			for (int i = 0; i < pc.length(); i++) {
+				moduleOf[pc.get(i).alleleIndex()] = currentModule;
+				elementsPerModule[currentModule]++;
+				if (i < bc.length() && bc.get(i).bit() == true) {
+					currentModule++;
+					elementsPerModule[currentModule] = 0;
+				}
+			}
+			numberOfClusters = currentModule + 1;
+		}
+		// Cohesion and Coupling, elements outside of the module and self references are coupling
+		int cohesion = 0;
+		int coupling = 0;
+		for (int elementId = 0; elementId < this.referenceIndex.size(); elementId++) {
+			final int module = moduleOf[elementId];
+			for (int r = this.referenceIndex.begin(elementId); r < this.referenceIndex.end(elementId); r++) {
+				final int target = this.referenceIndex.target(r);
+				if (target != ModularizableReferenceIndex.OUTSIDE && target != elementId && moduleOf[target] == module)
+					cohesion++;
+				else
+					coupling++;
+			}
+		}
 		return VEC_FACTORY.newVec(new double[] {
-				cohesiveData.getCohesion(),
-				cohesiveData.getCoupling(),				
-				new NumberOfClustersFF().apply(genotype),
-				new AverageClassesPerModule().apply(genotype),
-				new BalancedFF().apply(genotype)
+				cohesion,
+				coupling,
+				numberOfClusters,
+				(double) (moduleOf.length/numberOfClusters),
+				standardDeviation(elementsPerModule, numberOfClusters)
 			});
 	}
+
+	/*
+	 * Population standard deviation with the same floating point operations (and results) as
+	 * commons-math StandardDeviation(false), without boxing the values
+	 * */
+	static double standardDeviation(int[] values, int length) {
+		if (length == 1)
+			return 0.0;
+		final double len = length;
+		double sum = 0.0;
+		for (int i = 0; i < length; i++)
+			sum += values[i];
+		final double xbar = sum / len;
+		double correction = 0.0;
+		for (int i = 0; i < length; i++)
+			correction += values[i] - xbar;
+		final double mean = xbar + (correction / len);
+		double accum = 0.0;
+		double accum2 = 0.0;
+		for (int i = 0; i < length; i++) {
+			final double dev = values[i] - mean;
+			accum += dev * dev;
+			accum2 += dev;
+		}
+		return Math.sqrt((accum - (accum2 * accum2 / len)) / len);
+	}
 }
@@ -10,19 +10,19 @@ import io.jenetics.Genotype;
 @SuppressWarnings("rawtypes")
 public class SingleObjectiveModularizableFF implements Function<Genotype, Double>{
 	
-	private EList<ModularizableElement> modularizableElements;
+	private CRAIndexFF craIndexFF;
 	private int maxOfReferences;
 	private int optimalNumberOfModules;
 	
 	public SingleObjectiveModularizableFF(EList<ModularizableElement> modularizableElements, int maxOfReferences, int optimalNumberOfModules) {
-		this.modularizableElements = modularizableElements;
+		this.craIndexFF = new CRAIndexFF(modularizableElements);
 		this.maxOfReferences = maxOfReferences;
 		this.optimalNumberOfModules = optimalNumberOfModules;
 	}
 
 	@Override
 	public Double apply(Genotype genotype) {
-		double craIndexNormalize = normalizeCRAIndex(new CRAIndexFF(this.modularizableElements).apply(genotype));
+		double craIndexNormalize = normalizeCRAIndex(this.craIndexFF.apply(genotype));
 		double balance = new CoefficientOfVariabilityFF().apply(genotype);
 		double normalizeModules = normalizesModules(new NumberOfClustersFF().apply(genotype));		
 		return craIndexNormalize + balance + normalizeModules;
@@ -0,0 +1,72 @@
+package org.module.eer.jenetics.split.grouping;
+
+import java.util.random.RandomGenerator;
+
+import io.jenetics.Crossover;
+import io.jenetics.IntegerGene;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * Group-aware crossover of the grouping encoding. Every child keeps the modules of one parent and
+ * receives a random subset of the modules of the other parent unchanged (the injected elements leave
+ * their old modules), so whole modules are inherited instead of single labels.
+ * */
+public class GroupCrossover<C extends Comparable<? super C>> extends Crossover<IntegerGene, C> {
+
+	public GroupCrossover(double probability) {
+		super(probability);
+	}
+
+	@Override
+	protected int crossover(MSeq<IntegerGene> that, MSeq<IntegerGene> other) {
+		final RandomGenerator random = RandomRegistry.random();
+		final int[] thatLabels = labels(that);
+		final int[] otherLabels = labels(other);
+		final int[] thatChild = inject(thatLabels, otherLabels, random);
+		final int[] otherChild = inject(otherLabels, thatLabels, random);
+		int altered = changes(thatLabels, thatChild) + changes(otherLabels, otherChild);
+		GroupingEncoding.setLabels(that, thatChild);
+		GroupingEncoding.setLabels(other, otherChild);
+		return altered;
+	}
+
+	/*
+	 * Labels of the receiver with some modules of the donor injected, normalized
+	 * */
+	private static int[] inject(int[] receiver, int[] donor, RandomGenerator random) {
+		final int size = receiver.length;
+		int numberOfDonorModules = 0;
+		for (int label : donor)
+			numberOfDonorModules = Math.max(numberOfDonorModules, label + 1);
+		boolean[] injected = new boolean[numberOfDonorModules];
+		boolean any = false;
+		for (int m = 0; m < numberOfDonorModules; m++) {
+			injected[m] = random.nextBoolean();
+			any |= injected[m];
+		}
+		if (any == false)
+			injected[random.nextInt(numberOfDonorModules)] = true;
+		int[] child = new int[size];
+		for (int i = 0; i < size; i++)
+			child[i] = injected[donor[i]] ? size + donor[i] : receiver[i];
+		GroupingEncoding.normalize(child);
+		return child;
+	}
+
+	private static int[] labels(MSeq<IntegerGene> genes) {
+		int[] labels = new int[genes.length()];
+		for (int i = 0; i < labels.length; i++)
+			labels[i] = genes.get(i).intValue();
+		return labels;
+	}
+
+	private static int changes(int[] before, int[] after) {
+		int changes = 0;
+		for (int i = 0; i < before.length; i++) {
+			if (before[i] != after[i])
+				changes++;
+		}
+		return changes;
+	}
+}
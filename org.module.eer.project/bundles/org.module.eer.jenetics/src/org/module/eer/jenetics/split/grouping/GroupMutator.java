@@ -0,0 +1,70 @@
+package org.module.eer.jenetics.split.grouping;
+
+import java.util.random.RandomGenerator;
+
+import io.jenetics.Chromosome;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.Mutator;
+import io.jenetics.MutatorResult;
+import io.jenetics.util.MSeq;
+
+/*
+ * Group-aware mutation of the grouping encoding. Every element moves with probability p to another
+ * module or to a new module, and with probability p a random module is split in two or two random
+ * modules are merged. The labels are normalized afterwards.
+ * */
+public class GroupMutator<C extends Comparable<? super C>> extends Mutator<IntegerGene, C> {
+
+	public GroupMutator(double probability) {
+		super(probability);
+	}
+
+	@Override
+	protected MutatorResult<Chromosome<IntegerGene>> mutate(Chromosome<IntegerGene> chromosome, double p,
+			RandomGenerator random) {
+		final int[] labels = GroupingEncoding.labels((IntegerChromosome) chromosome);
+		final int size = labels.length;
+		int numberOfModules = 0;
+		for (int label : labels)
+			numberOfModules = Math.max(numberOfModules, label + 1);
+		int mutations = 0;
+		// Move elements, label numberOfModules is a new module
+		for (int i = 0; i < size; i++) {
+			if (random.nextDouble() < p) {
+				int label = random.nextInt(numberOfModules + 1);
+				if (label != labels[i]) {
+					labels[i] = label;
+					mutations++;
+				}
+			}
+		}
+		if (random.nextDouble() < p) {
+			int module = random.nextInt(numberOfModules);
+			if (random.nextBoolean()) {
+				// Split, every element of the module moves to the new module with probability 0.5
+				for (int i = 0; i < size; i++) {
+					if (labels[i] == module && random.nextBoolean()) {
+						labels[i] = size;
+						mutations++;
+					}
+				}
+			} else {
+				// Merge the module into another one
+				int into = random.nextInt(numberOfModules);
+				for (int i = 0; i < size; i++) {
+					if (labels[i] == module && module != into) {
+						labels[i] = into;
+						mutations++;
+					}
+				}
+			}
+		}
+		if (mutations == 0)
+			return new MutatorResult<Chromosome<IntegerGene>>(chromosome, 0);
+		GroupingEncoding.normalize(labels);
+		MSeq<IntegerGene> genes = MSeq.of(chromosome);
+		GroupingEncoding.setLabels(genes, labels);
+		return new MutatorResult<Chromosome<IntegerGene>>(chromosome.newInstance(genes.toISeq()), mutations);
+	}
+}
@@ -0,0 +1,177 @@
+package org.module.eer.jenetics.split.grouping;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import org.module.eer.jenetics.split.constraint.BasicConstraint;
+import org.module.eer.jenetics.split.constraint.RepairPlan;
+
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Constraint;
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * ModularizableDependenciesConstraint for the grouping encoding. A RelationshipType (or Procedure) has
+ * to be in the module of one of the elements it depends on. The repair walks the steps of the
+ * RepairPlan, so an element is relabelled after the elements it depends on, to the module with less
+ * elements among the modules of its related elements (randomly on ties): there is nothing to swap or
+ * shift. The bounds of the number of modules are the bounds of the ModularizableDependenciesConstraint.
+ * */
+@SuppressWarnings("rawtypes")
+public class GroupingConstraint implements Constraint {
+
+	// Passes over a plan with cycles, the moves of one pass can break a constraint of the cycle
+	private static final int MAX_PASSES = 8;
+	// Rounds of the repair of the number of modules and the constraints
+	private static final int MAX_ROUNDS = 16;
+
+	private List<BasicConstraint> listOfConstraints;
+	// Order of the repair, computed once from the list of constraints
+	private RepairPlan repairPlan;
+	private int minNumberOfModules;
+	private int maxNumberOfModules;
+
+	public GroupingConstraint(List<BasicConstraint> listOfConstraints, int minNumberOfModules, int maxNumberOfModules) {
+		this(listOfConstraints, RepairPlan.of(listOfConstraints), minNumberOfModules, maxNumberOfModules);
+	}
+
+	// The repair plan of the constraints, e.g. the plan of a ProblemContext shared by the runs of a model
+	public GroupingConstraint(List<BasicConstraint> listOfConstraints, RepairPlan repairPlan, int minNumberOfModules,
+			int maxNumberOfModules) {
+		if (minNumberOfModules < 1 || maxNumberOfModules < minNumberOfModules)
+			throw new IllegalArgumentException("Invalid bounds of the number of modules: [" + minNumberOfModules +
+					", " + maxNumberOfModules + "]");
+		this.listOfConstraints = listOfConstraints;
+		this.repairPlan = repairPlan;
+		this.minNumberOfModules = minNumberOfModules;
+		this.maxNumberOfModules = maxNumberOfModules;
+	}
+
+	@Override
+	public boolean test(Phenotype individual) {
+		final int[] labels = GroupingEncoding.labels(individual.genotype());
+		return validNumberOfModules(numberOfModules(labels), labels.length) && satisfied(labels);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Phenotype repair(Phenotype individual, long generation) {
+		final int[] labels = GroupingEncoding.labels(individual.genotype());
+		final int[] original = labels.clone();
+		final RandomGenerator random = RandomRegistry.random();
+		int numberOfModules = numberOfModules(labels);
+		int[] sizes = new int[labels.length + 1];
+		int rounds = 0;
+		do {
+			numberOfModules = repairNumberOfModules(labels, numberOfModules, random);
+			repairBasicConstraint(labels, sizes, random);
+			numberOfModules = GroupingEncoding.normalize(labels);
+		} while ((validNumberOfModules(numberOfModules, labels.length) == false || satisfied(labels) == false)
+				&& ++rounds < MAX_ROUNDS);
+		// Nothing to repair, the individual keeps its fitness
+		if (Arrays.equals(labels, original))
+			return individual;
+		final Genotype genotype = GroupingEncoding.genotype(labels);
+		return Phenotype.of(genotype, generation);
+	}
+
+	/*
+	 * One pass in the order of the RepairPlan (only a plan with cycles needs more passes), every
+	 * element is relabelled after the elements it depends on, so a move never breaks a constraint that
+	 * was already repaired
+	 * */
+	private void repairBasicConstraint(int[] labels, int[] sizes, RandomGenerator random) {
+		Arrays.fill(sizes, 0);
+		for (int label : labels)
+			sizes[label]++;
+		int passes = 0;
+		boolean moved;
+		do {
+			moved = false;
+			for (int step = 0; step < this.repairPlan.size(); step++) {
+				final int elementId = this.repairPlan.elementAt(step);
+				final int[] dependencies = this.repairPlan.dependenciesAt(step);
+				if (satisfied(labels, elementId, dependencies))
+					continue;
+				// Module with less elements among the modules of the related elements
+				int toLabel = -1;
+				int ties = 0;
+				for (int relatedElementId : dependencies) {
+					int label = labels[relatedElementId];
+					if (toLabel < 0 || sizes[label] < sizes[toLabel]) {
+						toLabel = label;
+						ties = 1;
+					} else if (sizes[label] == sizes[toLabel] && label != toLabel && random.nextInt(++ties) == 0) {
+						toLabel = label;
+					}
+				}
+				sizes[labels[elementId]]--;
+				labels[elementId] = toLabel;
+				sizes[toLabel]++;
+				moved = true;
+			}
+		} while (this.repairPlan.isAcyclic() == false && moved == true && ++passes < MAX_PASSES);
+	}
+
+	private int repairNumberOfModules(int[] labels, int numberOfModules, RandomGenerator random) {
+		// Merge random modules into other modules
+		while (numberOfModules > this.maxNumberOfModules) {
+			int module = random.nextInt(numberOfModules);
+			int into = (module + 1 + random.nextInt(numberOfModules - 1)) % numberOfModules;
+			for (int i = 0; i < labels.length; i++) {
+				if (labels[i] == module)
+					labels[i] = into;
+			}
+			numberOfModules = GroupingEncoding.normalize(labels);
+		}
+		if (numberOfModules >= this.minNumberOfModules || numberOfModules >= labels.length)
+			return numberOfModules;
+		// Move random elements to new modules, preferably elements without a step in the plan: the
+		// repair of the constraints would move a constrained element back to a related element
+		int[] free = new int[labels.length];
+		int numberOfFree = 0;
+		for (int elementId = 0; elementId < labels.length; elementId++) {
+			if (this.repairPlan.dependenciesOf(elementId).length == 0)
+				free[numberOfFree++] = elementId;
+		}
+		while (numberOfModules < this.minNumberOfModules && numberOfModules < labels.length) {
+			labels[numberOfFree > 0 ? free[random.nextInt(numberOfFree)] : random.nextInt(labels.length)] = labels.length;
+			numberOfModules = GroupingEncoding.normalize(labels);
+		}
+		return numberOfModules;
+	}
+
+	// The plan holds a step for every constraint that the repair can break, a constraint left out of
+	// the plan holds when the forced constraints of its group hold
+	private boolean satisfied(int[] labels) {
+		for (int step = 0; step < this.repairPlan.size(); step++) {
+			if (satisfied(labels, this.repairPlan.elementAt(step), this.repairPlan.dependenciesAt(step)) == false)
+				return false;
+		}
+		return true;
+	}
+
+	// True when the element is in the module of one of its related elements
+	private static boolean satisfied(int[] labels, int elementId, int[] dependencies) {
+		for (int relatedElementId : dependencies) {
+			if (labels[relatedElementId] == labels[elementId])
+				return true;
+		}
+		return false;
+	}
+
+	// The minimum is lowered to the number of elements
+	private boolean validNumberOfModules(int numberOfModules, int numberOfElements) {
+		return numberOfModules >= Math.min(this.minNumberOfModules, numberOfElements) &&
+				numberOfModules <= this.maxNumberOfModules;
+	}
+
+	private static int numberOfModules(int[] labels) {
+		int numberOfModules = 0;
+		for (int label : labels)
+			numberOfModules = Math.max(numberOfModules, label + 1);
+		return numberOfModules;
+	}
+}
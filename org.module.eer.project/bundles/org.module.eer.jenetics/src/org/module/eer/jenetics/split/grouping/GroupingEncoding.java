@@ -0,0 +1,163 @@
+package org.module.eer.jenetics.split.grouping;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import io.jenetics.BitChromosome;
+import io.jenetics.Genotype;
+import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
+import io.jenetics.PermutationChromosome;
+import io.jenetics.util.Factory;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+
+/*
+ * Grouping encoding, an alternative to PermutationChromosome + BitChromosome of separators.
+ * The genotype has one IntegerChromosome where the gene i is the module label of the element with
+ * id i. The labels are kept as a restricted growth string (labels[0] = 0 and every label is at most
+ * one more than the labels before it), so a partition has exactly one encoding and the modules
+ * are numbered by their first element.
+ * */
+public final class GroupingEncoding {
+
+	private GroupingEncoding() {
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static boolean isGroupingEncoded(Genotype genotype) {
+		return genotype.length() == 1 && genotype.get(0) instanceof IntegerChromosome;
+	}
+
+	/*
+	 * Factory of random partitions, the number of modules is uniform in [1, size]
+	 * */
+	@SuppressWarnings("rawtypes")
+	public static Factory<Genotype> encoding(final int size) {
+		return () -> {
+			final RandomGenerator random = RandomRegistry.random();
+			final int numberOfModules = 1 + random.nextInt(size);
+			int[] labels = new int[size];
+			for (int i = 0; i < size; i++)
+				labels[i] = random.nextInt(numberOfModules);
+			return genotype(labels);
+		};
+	}
+
+	/*
+	 * Genotype of the labels, the labels are normalized to a restricted growth string
+	 * */
+	@SuppressWarnings("rawtypes")
+	public static Genotype genotype(int[] labels) {
+		normalize(labels);
+		final int max = Math.max(0, labels.length - 1);
+		IntegerGene[] genes = new IntegerGene[labels.length];
+		for (int i = 0; i < labels.length; i++)
+			genes[i] = IntegerGene.of(labels[i], 0, max);
+		final IntegerChromosome chromosome = IntegerChromosome.of(genes);
+		return Genotype.of(chromosome);
+	}
+
+	public static int[] labels(IntegerChromosome chromosome) {
+		int[] labels = new int[chromosome.length()];
+		for (int i = 0; i < labels.length; i++)
+			labels[i] = chromosome.get(i).intValue();
+		return labels;
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static int[] labels(Genotype genotype) {
+		return labels((IntegerChromosome) genotype.get(0));
+	}
+
+	// Writes the labels back into the genes of a chromosome
+	public static void setLabels(MSeq<IntegerGene> genes, int[] labels) {
+		for (int i = 0; i < labels.length; i++) {
+			if (genes.get(i).intValue() != labels[i])
+				genes.set(i, genes.get(i).newInstance(labels[i]));
+		}
+	}
+
+	/*
+	 * Relabels in place to a restricted growth string, the labels can be any non negative int.
+	 * Returns the number of modules.
+	 * */
+	public static int normalize(int[] labels) {
+		int[] canonicalLabel = new int[Math.max(labels.length, maxLabel(labels) + 1)];
+		Arrays.fill(canonicalLabel, -1);
+		int numberOfModules = 0;
+		for (int i = 0; i < labels.length; i++) {
+			if (canonicalLabel[labels[i]] < 0)
+				canonicalLabel[labels[i]] = numberOfModules++;
+			labels[i] = canonicalLabel[labels[i]];
+		}
+		return numberOfModules;
+	}
+
+	private static int maxLabel(int[] labels) {
+		int max = 0;
+		for (int label : labels)
+			max = Math.max(max, label);
+		return max;
+	}
+
+	/*
+	 * Module of every element (moduleOf[elementId]) for both encodings, the modules of the permutation
+	 * encoding are numbered in chromosome order and the labels of the grouping encoding are normalized.
+	 * Returns the number of modules.
+	 * */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static int decode(Genotype genotype, int[] moduleOf) {
+		if (isGroupingEncoded(genotype)) {
+			final IntegerChromosome ic = (IntegerChromosome) genotype.get(0);
+			// The labels written by this encoding are already normalized, nothing is allocated for them
+			int numberOfModules = 0;
+			boolean normalized = true;
+			for (int i = 0; i < ic.length(); i++) {
+				moduleOf[i] = ic.get(i).intValue();
+				if (moduleOf[i] == numberOfModules)
+					numberOfModules++;
+				else if (moduleOf[i] > numberOfModules)
+					normalized = false;
+			}
+			return normalized ? numberOfModules : normalize(moduleOf);
+		}
+		final PermutationChromosome<Integer> pc = (PermutationChromosome<Integer>) genotype.get(0);
+		final BitChromosome bc = (BitChromosome) genotype.get(1);
+		int currentModule = 0;
+		for (int i = 0; i < pc.length(); i++) {
+			moduleOf[pc.get(i).alleleIndex()] = currentModule;
+			if (i < bc.length() && bc.get(i).bit() == true)
+				currentModule++;
+		}
+		return currentModule + 1;
+	}
+
+	/*
+	 * Element ids of every module, in module order
+	 * */
+	@SuppressWarnings("rawtypes")
+	public static int[][] modules(Genotype genotype) {
+		int[] moduleOf = new int[genotype.get(0).length()];
+		int numberOfModules = decode(genotype, moduleOf);
+		int[] sizes = new int[numberOfModules];
+		for (int label : moduleOf)
+			sizes[label]++;
+		int[][] modules = new int[numberOfModules][];
+		for (int m = 0; m < numberOfModules; m++)
+			modules[m] = new int[sizes[m]];
+		Arrays.fill(sizes, 0);
+		if (isGroupingEncoded(genotype)) {
+			for (int elementId = 0; elementId < moduleOf.length; elementId++)
+				modules[moduleOf[elementId]][sizes[moduleOf[elementId]]++] = elementId;
+		} else {
+			// Keep the order of the PermutationChromosome inside of the modules
+			final PermutationChromosome<?> pc = (PermutationChromosome<?>) genotype.get(0);
+			for (int i = 0; i < pc.length(); i++) {
+				int elementId = pc.get(i).alleleIndex();
+				modules[moduleOf[elementId]][sizes[moduleOf[elementId]]++] = elementId;
+			}
+		}
+		return modules;
+	}
+}
@@ -3,28 +3,46 @@ package org.module.eer.jenetics.split.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 import java.util.stream.Stream;
 
 import org.apache.commons.math3.genetics.Population;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
-import org.module.eer.jenetics.config.utils.ModularizableElementUtils;
+import org.module.eer.jenetics.config.utils.EdgeWeights;
+import org.module.eer.jenetics.config.utils.ModuleGraph;
+import org.module.eer.jenetics.config.utils.ProblemContext;
 import org.module.eer.jenetics.split.ISplitModulEER;
+import org.module.eer.jenetics.split.constraint.BasicConstraint;
+import org.module.eer.jenetics.split.constraint.ConstraintPreservingCrossover;
+import org.module.eer.jenetics.split.constraint.ConstraintPreservingMutator;
 import org.module.eer.jenetics.split.constraint.ModularizableDependenciesConstraint;
+import org.module.eer.jenetics.split.engine.DuplicatePartitionFilter;
+import org.module.eer.jenetics.split.engine.HypervolumeStagnationLimit;
+import org.module.eer.jenetics.split.engine.IslandModel;
+import org.module.eer.jenetics.split.engine.ReproducibleRuns;
+import org.module.eer.jenetics.split.engine.SplitBudget;
+import org.module.eer.jenetics.split.engine.SplitScheduler;
+import org.module.eer.jenetics.split.ff.CachedFF;
 import org.module.eer.jenetics.split.ff.GraphCohesionCouplingFF;
+import org.module.eer.jenetics.split.ff.IncrementalGraphCohesionCouplingFF;
+import org.module.eer.jenetics.split.grouping.GroupCrossover;
+import org.module.eer.jenetics.split.grouping.GroupMutator;
+import org.module.eer.jenetics.split.grouping.GroupingConstraint;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
 import org.module.eer.json.Result;
 import org.module.eer.mm.moduleeer.MEERModel;
 import org.module.eer.mm.moduleeer.ModularizableElement;
@@ -36,6 +54,7 @@ import io.jenetics.EnumGene;
 import io.jenetics.engine.Engine;
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.EvolutionStream;
+import io.jenetics.util.Factory;
 import io.jenetics.util.ISeq;
 import io.jenetics.Genotype;
 import io.jenetics.BitChromosome;
@@ -54,30 +73,374 @@ import io.jenetics.ext.moea.Vec;
 public class CompareModuleEERJenetics2 implements ISplitModulEER {
 
 	public ArrayList<double[]> newStats;
-	private Random rand = new Random(System.currentTimeMillis());
+	// Delta evaluation of the offspring that only differ from a parent by a few swaps or flips,
+	// only for unweighted graphs
+	private boolean incrementalEvaluation = false;
+	// Maximum number of partitions in the fitness cache shared by all the runs (one cache per run in
+	// a seeded run), 0 disables the cache.
+	// Off by default, a cached value can differ from a fresh one in the rounding (see CachedFF)
+	private int fitnessCacheSize = 0;
+	private CachedFF<Vec<double[]>> fitnessCache;
+	private List<CachedFF<Vec<double[]>>> runFitnessCaches = Collections.synchronizedList(new ArrayList<>());
+	// Replaces the individuals that encode the same partition as another one
+	private boolean duplicateElimination = false;
+	private List<DuplicatePartitionFilter> duplicateFilters = Collections.synchronizedList(new ArrayList<>());
+	// Module label per element (GroupingEncoding) instead of permutation + separators
+	private boolean groupingEncoding = false;
+	// Crossover and mutation that keep the dependency constraints, the repair is only a fallback
+	private boolean constraintPreservingAlterers = false;
+	// Bounds of the number of modules of the partitions
+	private int minNumberOfModules = 1;
+	private int maxNumberOfModules = Integer.MAX_VALUE;
+	// Seed of reproducible runs, null for unseeded runs
+	private Long seed = null;
+	// Island model (splitModulesIslands): generations between two migrations (0 for independent
+	// islands), elite individuals sent by every island and topology of the migrations
+	private int migrationInterval = 10;
+	private int numberOfMigrants = 5;
+	private IslandModel.Topology migrationTopology = IslandModel.Topology.RING;
+	// Threads of the runs and of the fitness evaluation, null for the default scheduler
+	private SplitScheduler scheduler = null;
+	// Convergence: the runs stop once the hypervolume improved by less than stagnationThreshold
+	// (relative) over the last stagnationWindow generations, 0 disables it
+	private int stagnationWindow = 0;
+	private double stagnationThreshold = 0.001;
+	// Hard cap of the generations of a run, 0 for the default (size * 2)
+	private int maxGenerations = 0;
+	// Weights of the kinds of references in the graph built from the model when the split gets no
+	// graph, null for the unweighted reference graph
+	private EdgeWeights edgeWeights = null;
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("rawtypes")
 	public ISeq<Phenotype> performParetoSet(Module splittingModule,
-			boolean[][] edges) {
-		final int size = splittingModule.getModularizableElements().size();
-		final Constraint modulEERConstraint = new ModularizableDependenciesConstraint(ModularizableElementUtils
-				.dependenciesOfAllModularizableElements(splittingModule.getModularizableElements()), 0);
+			ModuleGraph graph) {
+		final ProblemContext context = problemContext(splittingModule, graph);
+		return performParetoSet(context, runFitnessFunction(context, fitnessFunction(context)));
+	}
+
+	@SuppressWarnings("rawtypes")
+	public ISeq<Phenotype> performParetoSet(Module splittingModule,
+			Function<Genotype, Vec<double[]>> fitnessFunction) {
+		return performParetoSet(problemContext(splittingModule, null), fitnessFunction);
+	}
+
+	/*
+	 * One run, the context of the model is built once and shared by all the runs
+	 * */
+	@SuppressWarnings("rawtypes")
+	public ISeq<Phenotype> performParetoSet(ProblemContext context,
+			Function<Genotype, Vec<double[]>> fitnessFunction) {
+		return performParetoSet(context, fitnessFunction, SplitBudget.unlimited());
+	}
+
+	/*
+	 * One run that stops between two generations once the budget is exhausted, with the Pareto set
+	 * accumulated so far
+	 * */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ISeq<Phenotype> performParetoSet(ProblemContext context,
+			Function<Genotype, Vec<double[]>> fitnessFunction, SplitBudget budget) {
+		final Engine engine = buildEngine(context, fitnessFunction);
+		final long generations = generations(context);
+		final Predicate proceed = this.stagnationWindow > 0
+				? new HypervolumeStagnationLimit(this.stagnationWindow, this.stagnationThreshold, generations)
+				: result -> true;
+		return (ISeq<Phenotype>) engine.stream().limit(budget::proceed).limit(proceed).limit(generations)
+				.collect(MOEA.toParetoSet());
+	}
+
+	// Hard cap of the generations of a run
+	private long generations(ProblemContext context) {
+		return this.maxGenerations > 0 ? this.maxGenerations : context.size() * 2;
+	}
+
+	/*
+	 * Engine of one run (or one island)
+	 * */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public Engine buildEngine(ProblemContext context, Function<Genotype, Vec<double[]>> fitnessFunction) {
+		final int size = context.size();
+		final List<BasicConstraint> dependencies = context.getDependencies();
+		final Constraint modulEERConstraint = this.groupingEncoding == true
+				? new GroupingConstraint(dependencies, context.getRepairPlan(), this.minNumberOfModules,
+						this.maxNumberOfModules)
+				: new ModularizableDependenciesConstraint(dependencies, context.getRepairPlan(),
+						this.minNumberOfModules, this.maxNumberOfModules);
 
+		final Factory genotypeFactory = modulEERConstraint
+				.constrain(this.groupingEncoding == true ? GroupingEncoding.encoding(size) : encoding(size));
 		@SuppressWarnings("unchecked")
-		final Engine engine = Engine
-				.builder(new GraphCohesionCouplingFF(splittingModule.getModularizableElements(), edges),
-						modulEERConstraint.constrain(encoding(size)))
-				.constraint(modulEERConstraint).alterers(
-						// The `PartiallyMatchedCrossover` is used on chromosome with index 0.
-						PartialAlterer.of(new PartiallyMatchedCrossover(0.9), 0),
-						// The `PartiallyMatchedCrossover` is used on chromosome with index 1.
-						PartialAlterer.of(new MultiPointCrossover(0.9), 1),
-						// The SwapMutator is used on chromosome with index 0.
-						PartialAlterer.of(new SwapMutator(0.1), 0),
-						// The `Mutator` is used on chromosome with index 1.
-						PartialAlterer.of(new Mutator(0.1), 1))
-				.survivorsSelector(NSGA2Selector.ofVec()).populationSize(size).build();
-		return (ISeq<Phenotype>) engine.stream().limit(size * 2).collect(MOEA.toParetoSet());
+		final Engine.Builder builder = Engine
+				.builder(fitnessFunction, genotypeFactory)
+				.constraint(modulEERConstraint)
+				.survivorsSelector(NSGA2Selector.ofVec()).populationSize(size);
+		if (this.groupingEncoding == true) {
+			builder.alterers(
+					// The `GroupCrossover` injects modules of one parent into the other.
+					new GroupCrossover(0.9),
+					// The `GroupMutator` moves elements and splits or merges modules.
+					new GroupMutator(0.1));
+		} else if (this.constraintPreservingAlterers == true) {
+			final ModularizableDependenciesConstraint dependenciesConstraint =
+					(ModularizableDependenciesConstraint) modulEERConstraint;
+			builder.alterers(
+					// The `ConstraintPreservingCrossover` injects modules of one parent into the other.
+					new ConstraintPreservingCrossover(dependenciesConstraint, 0.9),
+					// The `ConstraintPreservingMutator` moves elements with the elements that depend on them.
+					new ConstraintPreservingMutator(dependenciesConstraint, 0.1));
+		} else {
+			builder.alterers(
+					// The `PartiallyMatchedCrossover` is used on chromosome with index 0.
+					PartialAlterer.of(new PartiallyMatchedCrossover(0.9), 0),
+					// The `PartiallyMatchedCrossover` is used on chromosome with index 1.
+					PartialAlterer.of(new MultiPointCrossover(0.9), 1),
+					// The SwapMutator is used on chromosome with index 0.
+					PartialAlterer.of(new SwapMutator(0.1), 0),
+					// The `Mutator` is used on chromosome with index 1.
+					PartialAlterer.of(new Mutator(0.1), 1));
+		}
+		if (this.duplicateElimination == true) {
+			DuplicatePartitionFilter duplicateFilter = new DuplicatePartitionFilter(genotypeFactory, modulEERConstraint);
+			this.duplicateFilters.add(duplicateFilter);
+			builder.interceptor(duplicateFilter);
+		}
+		// A seeded run draws all its random numbers on the thread of the run, in a fixed order
+		if (this.seed != null)
+			builder.executor(Runnable::run);
+		else
+			builder.executor(getScheduler().engineExecutor());
+		return builder.build();
+	}
+
+	// Context of the model, its graph is the given graph or the graph of the references of the model
+	private ProblemContext problemContext(Module splittingModule, ModuleGraph graph) {
+		if (graph == null)
+			return ProblemContext.of(splittingModule, this.edgeWeights);
+		return ProblemContext.of(splittingModule, graph);
+	}
+
+	/*
+	 * Fitness function of a model, shared by all the runs of the model. The cache is only shared by
+	 * unseeded runs: the first run that evaluates a partition decides the rounding of its cached value
+	 * (see CachedFF), so a seeded run has its own cache (runFitnessFunction).
+	 * */
+	@SuppressWarnings("rawtypes")
+	private Function<Genotype, Vec<double[]>> fitnessFunction(ProblemContext context) {
+		final Function<Genotype, Vec<double[]>> fitnessFunction = new GraphCohesionCouplingFF(context.getElements(),
+				context.getGraph());
+		this.runFitnessCaches.clear();
+		if (this.fitnessCacheSize <= 0 || this.seed != null) {
+			this.fitnessCache = null;
+			return fitnessFunction;
+		}
+		this.fitnessCache = new CachedFF<Vec<double[]>>(fitnessFunction, this.fitnessCacheSize);
+		return this.fitnessCache;
+	}
+
+	/*
+	 * Fitness function of one run (called in the run): the fitness function of the model, or an
+	 * incremental evaluator of its own (the parents it looks up are the individuals of the run) behind
+	 * the shared cache, and behind a cache of its own in a seeded run
+	 * */
+	@SuppressWarnings("rawtypes")
+	private Function<Genotype, Vec<double[]>> runFitnessFunction(ProblemContext context,
+			Function<Genotype, Vec<double[]>> fitnessFunction) {
+		final ModuleGraph graph = context.getGraph();
+		Function<Genotype, Vec<double[]>> runFitnessFunction = fitnessFunction;
+		if (this.incrementalEvaluation == true && graph.isWeighted() == false) {
+			final Function<Genotype, Vec<double[]>> incrementalFF = new IncrementalGraphCohesionCouplingFF(
+					context.getElements(), graph);
+			runFitnessFunction = this.fitnessCache != null
+					? new CachedFF<Vec<double[]>>(incrementalFF, this.fitnessCache)
+					: incrementalFF;
+		}
+		if (this.fitnessCacheSize <= 0 || this.seed == null)
+			return runFitnessFunction;
+		CachedFF<Vec<double[]>> runFitnessCache = new CachedFF<Vec<double[]>>(runFitnessFunction, this.fitnessCacheSize);
+		this.runFitnessCaches.add(runFitnessCache);
+		return runFitnessCache;
+	}
+
+	private void printFitnessCache() {
+		if (this.fitnessCache != null) {
+			System.out.println("Fitness cache: " + this.fitnessCache);
+			return;
+		}
+		List<CachedFF<Vec<double[]>>> caches = getRunFitnessCaches();
+		if (caches.isEmpty())
+			return;
+		long hits = 0;
+		long misses = 0;
+		for (CachedFF<Vec<double[]>> cache : caches) {
+			hits += cache.getHits();
+			misses += cache.getMisses();
+		}
+		System.out.println("Fitness caches of " + caches.size() + " runs: hits = " + hits + ", misses = " + misses
+				+ ", hit ratio = " + String.format("%.3f", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses)));
+	}
+
+	public boolean isIncrementalEvaluation() {
+		return incrementalEvaluation;
+	}
+
+	public void setIncrementalEvaluation(boolean incrementalEvaluation) {
+		this.incrementalEvaluation = incrementalEvaluation;
+	}
+
+	public int getFitnessCacheSize() {
+		return fitnessCacheSize;
+	}
+
+	public void setFitnessCacheSize(int fitnessCacheSize) {
+		this.fitnessCacheSize = fitnessCacheSize;
+	}
+
+	// Cache of the last split, null when it is disabled or the split is seeded
+	public CachedFF<Vec<double[]>> getFitnessCache() {
+		return fitnessCache;
+	}
+
+	// Caches of the runs of the last seeded split, empty when the cache is disabled or shared
+	public List<CachedFF<Vec<double[]>>> getRunFitnessCaches() {
+		return new ArrayList<>(runFitnessCaches);
+	}
+
+	public boolean isDuplicateElimination() {
+		return duplicateElimination;
+	}
+
+	public void setDuplicateElimination(boolean duplicateElimination) {
+		this.duplicateElimination = duplicateElimination;
+	}
+
+	// Filters of the runs of the last split (duplicate ratio per generation)
+	public List<DuplicatePartitionFilter> getDuplicateFilters() {
+		return new ArrayList<>(duplicateFilters);
+	}
+
+	public boolean isGroupingEncoding() {
+		return groupingEncoding;
+	}
+
+	public void setGroupingEncoding(boolean groupingEncoding) {
+		this.groupingEncoding = groupingEncoding;
+	}
+
+	public boolean isConstraintPreservingAlterers() {
+		return constraintPreservingAlterers;
+	}
+
+	public void setConstraintPreservingAlterers(boolean constraintPreservingAlterers) {
+		this.constraintPreservingAlterers = constraintPreservingAlterers;
+	}
+
+	public int getMinNumberOfModules() {
+		return minNumberOfModules;
+	}
+
+	public void setMinNumberOfModules(int minNumberOfModules) {
+		this.minNumberOfModules = minNumberOfModules;
+	}
+
+	public int getMaxNumberOfModules() {
+		return maxNumberOfModules;
+	}
+
+	public void setMaxNumberOfModules(int maxNumberOfModules) {
+		this.maxNumberOfModules = maxNumberOfModules;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+
+	public void setMigrationInterval(int migrationInterval) {
+		this.migrationInterval = migrationInterval;
+	}
+
+	public int getNumberOfMigrants() {
+		return numberOfMigrants;
+	}
+
+	public void setNumberOfMigrants(int numberOfMigrants) {
+		this.numberOfMigrants = numberOfMigrants;
+	}
+
+	public IslandModel.Topology getMigrationTopology() {
+		return migrationTopology;
+	}
+
+	public void setMigrationTopology(IslandModel.Topology migrationTopology) {
+		this.migrationTopology = migrationTopology;
+	}
+
+	public int getStagnationWindow() {
+		return stagnationWindow;
+	}
+
+	public void setStagnationWindow(int stagnationWindow) {
+		this.stagnationWindow = stagnationWindow;
+	}
+
+	public double getStagnationThreshold() {
+		return stagnationThreshold;
+	}
+
+	public void setStagnationThreshold(double stagnationThreshold) {
+		this.stagnationThreshold = stagnationThreshold;
+	}
+
+	public EdgeWeights getEdgeWeights() {
+		return edgeWeights;
+	}
+
+	public void setEdgeWeights(EdgeWeights edgeWeights) {
+		this.edgeWeights = edgeWeights;
+	}
+
+	public int getMaxGenerations() {
+		return maxGenerations;
+	}
+
+	public void setMaxGenerations(int maxGenerations) {
+		this.maxGenerations = maxGenerations;
+	}
+
+	public SplitScheduler getScheduler() {
+		return this.scheduler != null ? this.scheduler : SplitScheduler.getDefault();
+	}
+
+	public void setScheduler(SplitScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	private void printDuplicateRatios() {
+		List<DuplicatePartitionFilter> filters = getDuplicateFilters();
+		if (filters.isEmpty())
+			return;
+		StringBuilder sb = new StringBuilder("Duplicate ratio per generation:");
+		List<Double> ratios = filters.get(0).getDuplicateRatios();
+		for (int generation = 0; generation < ratios.size(); generation++) {
+			double sum = 0;
+			int runs = 0;
+			for (DuplicatePartitionFilter filter : filters) {
+				List<Double> runRatios = filter.getDuplicateRatios();
+				if (generation < runRatios.size()) {
+					sum += runRatios.get(generation);
+					runs++;
+				}
+			}
+			sb.append(String.format(" %.3f", sum / runs));
+		}
+		System.out.println(sb);
 	}
 
 	@Override
@@ -90,31 +453,43 @@ public class CompareModuleEERJenetics2 implements ISplitModulEER {
 		return Math.max(min, Math.min(max, value));
 	}
 
-	public List<List<Result>> splitModules2(Module splittingModule, boolean[][] edges) {
-		int numberOfThreads = 30;
+	public List<List<Result>> splitModules2(Module splittingModule, ModuleGraph graph) {
+		return splitModules2(splittingModule, graph, SplitBudget.unlimited());
+	}
+
+	/*
+	 * The 30 runs stop once the budget is exhausted, every run returns the Pareto set so far
+	 * */
+	public List<List<Result>> splitModules2(Module splittingModule, ModuleGraph graph, SplitBudget budget) {
+		int numberOfRuns = 30;
 
 		System.out.println("Model Size: " + splittingModule.getModularizableElements().size());
 		
 		long time = System.currentTimeMillis();
 		
-		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		this.duplicateFilters.clear();
+		// Built once, read by all the runs
+		final ProblemContext context = problemContext(splittingModule, graph);
+		@SuppressWarnings("rawtypes")
+		final Function<Genotype, Vec<double[]>> fitnessFunction = fitnessFunction(context);
+		final SplitScheduler scheduler = getScheduler();
 		List<Future<ISeq<Phenotype>>> futures = new ArrayList<>();
+		// One random generator per run, split from the seed
+		final RandomGenerator[] randoms = this.seed != null ? ReproducibleRuns.randoms(this.seed, numberOfRuns)
+				: new RandomGenerator[numberOfRuns];
 
-		for (int i = 0; i < numberOfThreads; i++) {
+		for (int i = 0; i < numberOfRuns; i++) {
+			final RandomGenerator random = randoms[i];
 			Callable<ISeq<Phenotype>> task = new Callable<ISeq<Phenotype>>() {
 				@Override
 				public ISeq<Phenotype> call() {
-					// Replace this with the method you want to execute
-					// For demonstration purposes, let's say the method returns the thread's name
-					return performParetoSet(splittingModule, edges);
+					return ReproducibleRuns.run(random, () -> performParetoSet(context, runFitnessFunction(context, fitnessFunction), budget));
 				}
 			};
-			Future<ISeq<Phenotype>> future = executor.submit(task);
+			Future<ISeq<Phenotype>> future = scheduler.submit(task);
 			futures.add(future);
 		}
 
-		executor.shutdown();
-
 
 		EList<MEERModel> resultOfSplittingModels = new BasicEList<MEERModel>();
 		List<List<Result>> listOfResults = new ArrayList<>();
@@ -144,32 +519,87 @@ public class CompareModuleEERJenetics2 implements ISplitModulEER {
 			}
 		});
 		System.out.println("Minutes: " + ((System.currentTimeMillis() - time) / 60000.0));
+		printFitnessCache();
+		printDuplicateRatios();
 		return listOfResults;
 	}
+
+	/*
+	 * The 30 runs of splitModules2 as the islands of an IslandModel, that exchange elite individuals
+	 * every migrationInterval generations, the result is a single merged Pareto set. A migration
+	 * interval of 0 merges the Pareto sets of 30 independent runs.
+	 * */
+	public List<Result> splitModulesIslands(Module splittingModule, ModuleGraph graph) {
+		return splitModulesIslands(splittingModule, graph, SplitBudget.unlimited());
+	}
+
+	@SuppressWarnings("rawtypes")
+	public List<Result> splitModulesIslands(Module splittingModule, ModuleGraph graph, SplitBudget budget) {
+		int numberOfIslands = 30;
+
+		System.out.println("Model Size: " + splittingModule.getModularizableElements().size());
+
+		long time = System.currentTimeMillis();
+
+		this.duplicateFilters.clear();
+		// Built once, read by all the islands
+		final ProblemContext context = problemContext(splittingModule, graph);
+		final Function<Genotype, Vec<double[]>> fitnessFunction = fitnessFunction(context);
+		IslandModel islandModel = new IslandModel(numberOfIslands, () -> buildEngine(context, runFitnessFunction(context, fitnessFunction)),
+				getScheduler().runExecutor());
+		islandModel.setMigrationInterval(this.migrationInterval);
+		islandModel.setNumberOfMigrants(this.numberOfMigrants);
+		islandModel.setTopology(this.migrationTopology);
+		islandModel.setSeed(this.seed);
+		final ISeq<Phenotype> paretoSet = islandModel.evolve(generations(context), budget);
+
+		Set<Integer> hashSet = new HashSet<>();
+		List<Result> results = new ArrayList<>();
+		newStats = new ArrayList<>();
+		paretoSet.stream().forEach(phenotype -> {
+			int hash = Arrays.hashCode((double[]) ((Vec) phenotype.fitness()).data());
+			if (!hashSet.contains(hash)) {
+				hashSet.add(hash);
+				MEERModel model = convertPhenotypeToModulEER(phenotype, splittingModule);
+				double[] stat = getNewStats(phenotype.fitness());
+				newStats.add(stat);
+				results.add(new Result(stat[0], stat[1], model));
+			}
+		});
+		System.out.println("Minutes: " + ((System.currentTimeMillis() - time) / 60000.0));
+		printFitnessCache();
+		printDuplicateRatios();
+		return results;
+	}
 	
 	
-	public EList<MEERModel> splitModules(Module splittingModule, boolean[][] edges) {
-//		int numberOfThreads = bound(10, splittingModule.getModularizableElements().size(), 50);
-		int numberOfThreads = 30;
+	public EList<MEERModel> splitModules(Module splittingModule, ModuleGraph graph) {
+//		int numberOfRuns = bound(10, splittingModule.getModularizableElements().size(), 50);
+		int numberOfRuns = 30;
 
-		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		this.duplicateFilters.clear();
+		// Built once, read by all the runs
+		final ProblemContext context = problemContext(splittingModule, graph);
+		@SuppressWarnings("rawtypes")
+		final Function<Genotype, Vec<double[]>> fitnessFunction = fitnessFunction(context);
+		final SplitScheduler scheduler = getScheduler();
 		List<Future<ISeq<Phenotype>>> futures = new ArrayList<>();
+		// One random generator per run, split from the seed
+		final RandomGenerator[] randoms = this.seed != null ? ReproducibleRuns.randoms(this.seed, numberOfRuns)
+				: new RandomGenerator[numberOfRuns];
 
-		for (int i = 0; i < numberOfThreads; i++) {
+		for (int i = 0; i < numberOfRuns; i++) {
+			final RandomGenerator random = randoms[i];
 			Callable<ISeq<Phenotype>> task = new Callable<ISeq<Phenotype>>() {
 				@Override
 				public ISeq<Phenotype> call() {
-					// Replace this with the method you want to execute
-					// For demonstration purposes, let's say the method returns the thread's name
-					return performParetoSet(splittingModule, edges);
+					return ReproducibleRuns.run(random, () -> performParetoSet(context, runFitnessFunction(context, fitnessFunction)));
 				}
 			};
-			Future<ISeq<Phenotype>> future = executor.submit(task);
+			Future<ISeq<Phenotype>> future = scheduler.submit(task);
 			futures.add(future);
 		}
 
-		executor.shutdown();
-
 
 		EList<MEERModel> resultOfSplittingModels = new BasicEList<MEERModel>();
 		List<List<Result>> listOfResults = new ArrayList<>();
@@ -235,6 +665,18 @@ public class CompareModuleEERJenetics2 implements ISplitModulEER {
 		splittedMEERModel.setName("Splitted " + splittingModule.getName());
 		Copier copier = new Copier();
 		EList<Module> listOfModules = new BasicEList<Module>();
+		if (GroupingEncoding.isGroupingEncoded(phenotype.genotype())) {
+			for (int[] elements : GroupingEncoding.modules(phenotype.genotype())) {
+				Module module = ModuleeerFactoryImpl.eINSTANCE.createModule();
+				for (int elementId : elements)
+					module.getModularizableElements().add((ModularizableElement) copier
+							.copy(splittingModule.getModularizableElements().get(elementId)));
+				listOfModules.add(module);
+			}
+			copier.copyReferences();
+			splittedMEERModel.getModules().addAll(listOfModules);
+			return splittedMEERModel;
+		}
 		Module currentModule = ModuleeerFactoryImpl.eINSTANCE.createModule();
 		listOfModules.add(currentModule);
 		final PermutationChromosome pc = (PermutationChromosome) phenotype.genotype().get(0);
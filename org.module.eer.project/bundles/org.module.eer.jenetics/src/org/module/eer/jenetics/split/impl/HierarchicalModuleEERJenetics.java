@@ -1,15 +1,34 @@
 package org.module.eer.jenetics.split.impl;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
-import org.module.eer.jenetics.config.utils.ModularizableElementUtils;
+import org.module.eer.jenetics.config.utils.ModularizableReferenceIndex;
+import org.module.eer.jenetics.config.utils.ProblemContext;
 import org.module.eer.jenetics.split.ISplitModulEER;
+import org.module.eer.jenetics.split.constraint.BasicConstraint;
+import org.module.eer.jenetics.split.constraint.ConstraintPreservingCrossover;
+import org.module.eer.jenetics.split.constraint.ConstraintPreservingMutator;
 import org.module.eer.jenetics.split.constraint.ModularizableDependenciesConstraint;
+import org.module.eer.jenetics.split.engine.DuplicatePartitionFilter;
+import org.module.eer.jenetics.split.engine.HypervolumeStagnationLimit;
+import org.module.eer.jenetics.split.engine.ReproducibleRuns;
+import org.module.eer.jenetics.split.engine.SplitBudget;
+import org.module.eer.jenetics.split.engine.SplitScheduler;
+import org.module.eer.jenetics.split.ff.CachedFF;
+import org.module.eer.jenetics.split.ff.IncrementalMixedModularizableFF;
 import org.module.eer.jenetics.split.ff.MixedModularizableFF;
+import org.module.eer.jenetics.split.grouping.GroupCrossover;
+import org.module.eer.jenetics.split.grouping.GroupMutator;
+import org.module.eer.jenetics.split.grouping.GroupingConstraint;
+import org.module.eer.jenetics.split.grouping.GroupingEncoding;
 import org.module.eer.jenetics.split.stats.MEERStatistics;
 import org.module.eer.jenetics.utils.Cohesive;
 import org.module.eer.mm.moduleeer.MEERModel;
@@ -32,6 +51,7 @@ import io.jenetics.engine.Engine;
 import io.jenetics.ext.moea.MOEA;
 import io.jenetics.ext.moea.NSGA2Selector;
 import io.jenetics.ext.moea.Vec;
+import io.jenetics.util.Factory;
 import io.jenetics.util.ISeq;
 import io.jenetics.util.IntRange;
 
@@ -39,42 +59,236 @@ public class HierarchicalModuleEERJenetics implements ISplitModulEER {
 	
 	public static final int OPTIMAL_SIZE_PER_MODULE = 7;	
 	
+	// Delta evaluation of the offspring that only differ from a parent by a few swaps or flips
+	private boolean incrementalEvaluation = false;
+	// Maximum number of partitions in the fitness cache, 0 disables the cache.
+	// Off by default, a cached value can differ from a fresh one in the rounding (see CachedFF)
+	private int fitnessCacheSize = 0;
+	private CachedFF<Vec<double[]>> fitnessCache;
+	// Replaces the individuals that encode the same partition as another one
+	private boolean duplicateElimination = false;
+	private DuplicatePartitionFilter duplicateFilter;
+	// Module label per element (GroupingEncoding) instead of permutation + separators
+	private boolean groupingEncoding = false;
+	// Crossover and mutation that keep the dependency constraints, the repair is only a fallback
+	private boolean constraintPreservingAlterers = false;
+	// Bounds of the number of modules of the partitions
+	private int minNumberOfModules = 1;
+	private int maxNumberOfModules = Integer.MAX_VALUE;
+	// Seed of reproducible runs, null for unseeded runs
+	private Long seed = null;
+	// Threads of the fitness evaluation, null for the default scheduler
+	private SplitScheduler scheduler = null;
+	// Convergence: the runs stop once the hypervolume improved by less than stagnationThreshold
+	// (relative) over the last stagnationWindow generations, 0 disables it
+	private int stagnationWindow = 0;
+	private double stagnationThreshold = 0.001;
+	// Hard cap of the generations of a run, 0 for the default (300)
+	private int maxGenerations = 0;
+	
 	@SuppressWarnings("rawtypes")
 	public ISeq<Phenotype> performParetoSet(Module splittingModule) {
-		final int sizeOfModularizableElements = splittingModule.getModularizableElements().size();
-		final int optimalNumberOfModules = sizeOfModularizableElements/OPTIMAL_SIZE_PER_MODULE;		
-		final Constraint modulEERConstraint = new ModularizableDependenciesConstraint(ModularizableElementUtils.
-				dependenciesOfAllModularizableElements(splittingModule.getModularizableElements()), optimalNumberOfModules);		
+		return performParetoSet(splittingModule, SplitBudget.unlimited());
+	}
+
+	/*
+	 * Stops between two generations once the budget is exhausted, with the Pareto set accumulated so far
+	 * */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ISeq<Phenotype> performParetoSet(Module splittingModule, SplitBudget budget) {
+		final ProblemContext context = ProblemContext.of(splittingModule);
+		final int sizeOfModularizableElements = context.size();
+		final List<BasicConstraint> dependencies = context.getDependencies();
+		final Constraint modulEERConstraint = this.groupingEncoding == true
+				? new GroupingConstraint(dependencies, context.getRepairPlan(), this.minNumberOfModules,
+						this.maxNumberOfModules)
+				: new ModularizableDependenciesConstraint(dependencies, context.getRepairPlan(),
+						this.minNumberOfModules, this.maxNumberOfModules);		
+		final ModularizableReferenceIndex referenceIndex = context.getReferenceIndex();
+		Function<Genotype, Vec<double[]>> fitnessFunction = this.incrementalEvaluation == true
+				? new IncrementalMixedModularizableFF(referenceIndex)
+				: new MixedModularizableFF(referenceIndex);
+		this.fitnessCache = null;
+		if (this.fitnessCacheSize > 0) {
+			this.fitnessCache = new CachedFF<Vec<double[]>>(fitnessFunction, this.fitnessCacheSize);
+			fitnessFunction = this.fitnessCache;
+		}
+		final Factory genotypeFactory = modulEERConstraint.constrain(this.groupingEncoding == true
+				? GroupingEncoding.encoding(sizeOfModularizableElements)
+				: encoding(sizeOfModularizableElements));
 		@SuppressWarnings({ "unchecked" })
-		final Engine engine = Engine
-				.builder(new MixedModularizableFF(splittingModule.getModularizableElements()), 
-						modulEERConstraint.constrain(encoding(sizeOfModularizableElements)))						
+		final Engine.Builder builder = Engine
+				.builder(fitnessFunction, genotypeFactory)						
 				.constraint(modulEERConstraint)
-				.alterers(
-						//The `PartiallyMatchedCrossover` is used on chromosome with index 0.
-						PartialAlterer.of(new PartiallyMatchedCrossover(0.9), 0),
-						//The `PartiallyMatchedCrossover` is used on chromosome with index 1.
-						PartialAlterer.of(new MultiPointCrossover(0.9), 1),
-						//The SwapMutator is used on chromosome with index 0.
-						PartialAlterer.of(new SwapMutator(0.1), 0),
-						//The `Mutator` is used on chromosome with index 1.
-						PartialAlterer.of(new Mutator(0.1), 1)
-						)
 				.survivorsSelector(NSGA2Selector.ofVec())
-				.populationSize(200)
-				.build();
+				.populationSize(200);
+		if (this.groupingEncoding == true) {
+			builder.alterers(
+					//The `GroupCrossover` injects modules of one parent into the other.
+					new GroupCrossover(0.9),
+					//The `GroupMutator` moves elements and splits or merges modules.
+					new GroupMutator(0.1)
+					);
+		} else if (this.constraintPreservingAlterers == true) {
+			final ModularizableDependenciesConstraint dependenciesConstraint =
+					(ModularizableDependenciesConstraint) modulEERConstraint;
+			builder.alterers(
+					//The `ConstraintPreservingCrossover` injects modules of one parent into the other.
+					new ConstraintPreservingCrossover(dependenciesConstraint, 0.9),
+					//The `ConstraintPreservingMutator` moves elements with the elements that depend on them.
+					new ConstraintPreservingMutator(dependenciesConstraint, 0.1));
+		} else {
+			builder.alterers(
+					//The `PartiallyMatchedCrossover` is used on chromosome with index 0.
+					PartialAlterer.of(new PartiallyMatchedCrossover(0.9), 0),
+					//The `PartiallyMatchedCrossover` is used on chromosome with index 1.
+					PartialAlterer.of(new MultiPointCrossover(0.9), 1),
+					//The SwapMutator is used on chromosome with index 0.
+					PartialAlterer.of(new SwapMutator(0.1), 0),
+					//The `Mutator` is used on chromosome with index 1.
+					PartialAlterer.of(new Mutator(0.1), 1)
+					);
+		}
+		this.duplicateFilter = null;
+		if (this.duplicateElimination == true) {
+			this.duplicateFilter = new DuplicatePartitionFilter(genotypeFactory, modulEERConstraint);
+			builder.interceptor(this.duplicateFilter);
+		}
+		//A seeded run draws all its random numbers on this thread, in a fixed order
+		if (this.seed != null)
+			builder.executor(Runnable::run);
+		else
+			builder.executor(getScheduler().engineExecutor());
+		final Engine engine = builder.build();
 		
+		final long generations = this.maxGenerations > 0 ? this.maxGenerations : 300;
+		final Predicate proceed = this.stagnationWindow > 0
+				? new HypervolumeStagnationLimit(this.stagnationWindow, this.stagnationThreshold, generations)
+				: result -> true;
+		final RandomGenerator random = this.seed != null ? ReproducibleRuns.randoms(this.seed, 1)[0] : null;
 		@SuppressWarnings({ "unchecked" })
-		final ISeq<Phenotype> seqPhenotypes = (ISeq<Phenotype>) engine.stream()
-				.limit(300)				
-				.collect(MOEA.toParetoSet(IntRange.of(75, 100)));
+		final ISeq<Phenotype> seqPhenotypes = ReproducibleRuns.run(random, () -> (ISeq<Phenotype>) engine.stream()
+				.limit(budget::proceed)
+				.limit(proceed)
+				.limit(generations)				
+				.collect(MOEA.toParetoSet(IntRange.of(75, 100))));
 		return seqPhenotypes;
 	}	
 	
+	public boolean isIncrementalEvaluation() {
+		return incrementalEvaluation;
+	}
+
+	public void setIncrementalEvaluation(boolean incrementalEvaluation) {
+		this.incrementalEvaluation = incrementalEvaluation;
+	}
+
+	public int getFitnessCacheSize() {
+		return fitnessCacheSize;
+	}
+
+	public void setFitnessCacheSize(int fitnessCacheSize) {
+		this.fitnessCacheSize = fitnessCacheSize;
+	}
+
+	// Cache of the last split (hits and misses), null when it is disabled
+	public CachedFF<Vec<double[]>> getFitnessCache() {
+		return fitnessCache;
+	}
+
+	public boolean isDuplicateElimination() {
+		return duplicateElimination;
+	}
+
+	public void setDuplicateElimination(boolean duplicateElimination) {
+		this.duplicateElimination = duplicateElimination;
+	}
+
+	// Filter of the last split (duplicate ratio per generation), null when it is disabled
+	public DuplicatePartitionFilter getDuplicateFilter() {
+		return duplicateFilter;
+	}
+
+	public boolean isGroupingEncoding() {
+		return groupingEncoding;
+	}
+
+	public void setGroupingEncoding(boolean groupingEncoding) {
+		this.groupingEncoding = groupingEncoding;
+	}
+
+	public boolean isConstraintPreservingAlterers() {
+		return constraintPreservingAlterers;
+	}
+
+	public void setConstraintPreservingAlterers(boolean constraintPreservingAlterers) {
+		this.constraintPreservingAlterers = constraintPreservingAlterers;
+	}
+
+	public int getMinNumberOfModules() {
+		return minNumberOfModules;
+	}
+
+	public void setMinNumberOfModules(int minNumberOfModules) {
+		this.minNumberOfModules = minNumberOfModules;
+	}
+
+	public int getMaxNumberOfModules() {
+		return maxNumberOfModules;
+	}
+
+	public void setMaxNumberOfModules(int maxNumberOfModules) {
+		this.maxNumberOfModules = maxNumberOfModules;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	public int getStagnationWindow() {
+		return stagnationWindow;
+	}
+
+	public void setStagnationWindow(int stagnationWindow) {
+		this.stagnationWindow = stagnationWindow;
+	}
+
+	public double getStagnationThreshold() {
+		return stagnationThreshold;
+	}
+
+	public void setStagnationThreshold(double stagnationThreshold) {
+		this.stagnationThreshold = stagnationThreshold;
+	}
+
+	public int getMaxGenerations() {
+		return maxGenerations;
+	}
+
+	public void setMaxGenerations(int maxGenerations) {
+		this.maxGenerations = maxGenerations;
+	}
+
+	public SplitScheduler getScheduler() {
+		return this.scheduler != null ? this.scheduler : SplitScheduler.getDefault();
+	}
+
+	public void setScheduler(SplitScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+	
 	@Override
 	public EList<MEERModel> splitModules(Module splittingModule) {		
+		return splitModules(splittingModule, SplitBudget.unlimited());
+	}
+
+	public EList<MEERModel> splitModules(Module splittingModule, SplitBudget budget) {
 		@SuppressWarnings({ "rawtypes" })
-		final ISeq<Phenotype> seqPhenotypes = performParetoSet(splittingModule);
+		final ISeq<Phenotype> seqPhenotypes = performParetoSet(splittingModule, budget);
 		
 		EList<MEERModel> resultOfSplittingModels = new BasicEList<MEERModel>();
 		for (@SuppressWarnings("rawtypes") Phenotype phenotype : seqPhenotypes) {
@@ -101,6 +315,18 @@ public class HierarchicalModuleEERJenetics implements ISplitModulEER {
 		splittedMEERModel.setName("Splitted " + splittingModule.getName());
 		Copier copier = new Copier();
 		EList<Module> listOfModules = new BasicEList<Module>();
+		if (GroupingEncoding.isGroupingEncoded(phenotype.genotype())) {
+			for (int[] elements : GroupingEncoding.modules(phenotype.genotype())) {
+				Module module = ModuleeerFactoryImpl.eINSTANCE.createModule();
+				for (int elementId : elements)
+					module.getModularizableElements().add( (ModularizableElement) 
+							copier.copy(splittingModule.getModularizableElements().get(elementId)));
+				listOfModules.add(module);
+			}
+			copier.copyReferences();
+			splittedMEERModel.getModules().addAll(listOfModules);
+			return splittedMEERModel;
+		}
 		Module currentModule = ModuleeerFactoryImpl.eINSTANCE.createModule();
 		listOfModules.add(currentModule);
 		final PermutationChromosome pc = (PermutationChromosome) phenotype.genotype().get(0);
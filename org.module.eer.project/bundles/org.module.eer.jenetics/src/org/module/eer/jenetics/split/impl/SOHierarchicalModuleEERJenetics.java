@@ -5,6 +5,7 @@ import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
 import org.module.eer.jenetics.config.utils.ModularizableElementUtils;
 import org.module.eer.jenetics.split.ISplitModulEER;
+import org.module.eer.jenetics.split.engine.SplitScheduler;
 import org.module.eer.jenetics.split.ff.ModuleFF;
 import org.module.eer.jenetics.split.ff.SingleObjectiveModularizableFF;
 import org.module.eer.mm.moduleeer.MEERModel;
@@ -60,6 +61,7 @@ public class SOHierarchicalModuleEERJenetics implements ISplitModulEER {
 				.maximizing()
 				.survivorsSelector(new EliteSelector<>(8))
 				.populationSize(200)
+				.executor(SplitScheduler.getDefault().engineExecutor())
 				.build();
 		
 		@SuppressWarnings("unchecked")
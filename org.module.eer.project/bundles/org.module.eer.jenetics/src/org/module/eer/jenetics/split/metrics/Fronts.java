@@ -0,0 +1,84 @@
+package org.module.eer.jenetics.split.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.jenetics.Phenotype;
+import io.jenetics.ext.moea.ElementComparator;
+import io.jenetics.ext.moea.Vec;
+
+/*
+ * Fronts of the quality metrics: a double[][] with one row of objective values per solution, every
+ * objective minimized. The fitness Vec of a split (GraphCohesionCouplingFF, MixedModularizableFF)
+ * maximizes the cohesion, so a front of phenotypes is oriented by the comparator of the Vec: the
+ * maximized objectives are negated.
+ * */
+public final class Fronts {
+
+	private Fronts() {
+	}
+
+	// Orientation of the objectives of the Vec, 1 for a minimized objective and -1 for a maximized one
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static double[] signs(Vec<double[]> fitness) {
+		final int dimension = fitness.length();
+		final ElementComparator comparator = fitness.comparator();
+		double[] signs = new double[dimension];
+		for (int i = 0; i < dimension; i++) {
+			double[] larger = new double[dimension];
+			larger[i] = 1;
+			signs[i] = comparator.compare(larger, new double[dimension], i) > 0 ? -1 : 1;
+		}
+		return signs;
+	}
+
+	// Oriented objectives of the phenotypes (fitness Vec<double[]>)
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static double[][] of(Iterable<? extends Phenotype> phenotypes) {
+		List<double[]> front = new ArrayList<double[]>();
+		double[] signs = null;
+		for (Phenotype phenotype : phenotypes) {
+			final Vec<double[]> fitness = (Vec<double[]>) phenotype.fitness();
+			if (signs == null)
+				signs = signs(fitness);
+			final double[] data = fitness.data();
+			double[] point = new double[data.length];
+			for (int i = 0; i < data.length; i++)
+				point[i] = signs[i] * data[i];
+			front.add(point);
+		}
+		return front.toArray(new double[front.size()][]);
+	}
+
+	// Pareto dominance of minimized objectives: no worse in every objective and better in one
+	public static boolean dominates(double[] a, double[] b) {
+		boolean better = false;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] > b[i])
+				return false;
+			if (a[i] < b[i])
+				better = true;
+		}
+		return better;
+	}
+
+	// Points not dominated by another point, without duplicates (first occurrence kept)
+	public static double[][] nonDominated(double[][] front) {
+		List<double[]> nonDominated = new ArrayList<double[]>(front.length);
+		for (int p = 0; p < front.length; p++) {
+			boolean keep = true;
+			for (int q = 0; q < front.length && keep == true; q++)
+				keep = dominates(front[q], front[p]) == false && (q >= p || Arrays.equals(front[q], front[p]) == false);
+			if (keep == true)
+				nonDominated.add(front[p]);
+		}
+		return nonDominated.toArray(new double[nonDominated.size()][]);
+	}
+
+	static void checkDimension(double[][] front, int dimension) {
+		for (double[] point : front)
+			if (point.length != dimension)
+				throw new IllegalArgumentException("A point has " + point.length + " objectives instead of " + dimension);
+	}
+}
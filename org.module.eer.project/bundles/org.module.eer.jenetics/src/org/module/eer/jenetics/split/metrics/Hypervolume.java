@@ -0,0 +1,136 @@
+package org.module.eer.jenetics.split.metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/*
+ * Hypervolume of a front of minimized objectives (see Fronts): the volume dominated by the front and
+ * bounded by the reference point, the points that are not better than the reference point in every
+ * objective add nothing. Two and three objectives are exact in O(n log n) (a sweep of the points,
+ * with a staircase of the projected front for three objectives), more objectives (the five of
+ * MixedModularizableFF) are estimated by Monte-Carlo sampling of the box between the front and the
+ * reference point. The front does not have to be non-dominated.
+ * */
+public final class Hypervolume {
+
+	public static final int DEFAULT_SAMPLES = 4096;
+	// Seed of the samples of of(...), the same front always has the same estimate
+	private static final long DEFAULT_SEED = 0x5EEDL;
+
+	private Hypervolume() {
+	}
+
+	// Exact with two or three objectives, estimated with DEFAULT_SAMPLES fixed samples otherwise
+	public static double of(double[][] front, double[] reference) {
+		switch (reference.length) {
+		case 2:
+			return exact2D(front, reference);
+		case 3:
+			return exact3D(front, reference);
+		default:
+			return monteCarlo(front, reference, DEFAULT_SAMPLES, new SplittableRandom(DEFAULT_SEED));
+		}
+	}
+
+	public static double exact2D(double[][] front, double[] reference) {
+		Fronts.checkDimension(front, 2);
+		double[][] sorted = front.clone();
+		Arrays.sort(sorted, (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+		double hypervolume = 0;
+		double bestY = reference[1];
+		for (double[] point : sorted) {
+			if (point[0] < reference[0] && point[1] < bestY) {
+				hypervolume += (reference[0] - point[0]) * (bestY - point[1]);
+				bestY = point[1];
+			}
+		}
+		return hypervolume;
+	}
+
+	/*
+	 * Sweep of the points by the third objective. The staircase (x -> y, x ascending and y descending)
+	 * is the non-dominated projection of the points swept so far and area is the area it dominates, so
+	 * the volume between two consecutive points of the sweep is area * (z - previous z).
+	 * */
+	public static double exact3D(double[][] front, double[] reference) {
+		Fronts.checkDimension(front, 3);
+		double[][] sorted = front.clone();
+		Arrays.sort(sorted, (a, b) -> Double.compare(a[2], b[2]));
+		final TreeMap<Double, Double> staircase = new TreeMap<Double, Double>();
+		double hypervolume = 0;
+		double area = 0;
+		double z = 0;
+		for (double[] point : sorted) {
+			if (point[0] >= reference[0] || point[1] >= reference[1] || point[2] >= reference[2])
+				continue;
+			hypervolume += area * (point[2] - z);
+			z = point[2];
+			area += insert(staircase, point[0], point[1], reference);
+		}
+		return hypervolume + area * (reference[2] - z);
+	}
+
+	// Inserts the projected point in the staircase, returns the area it adds
+	private static double insert(TreeMap<Double, Double> staircase, double x, double y, double[] reference) {
+		final Map.Entry<Double, Double> floor = staircase.floorEntry(x);
+		if (floor != null && floor.getValue() <= y)
+			return 0;
+		// Above top the area is dominated by the point on the left (or out of the reference)
+		double top = floor != null ? floor.getValue() : reference[1];
+		double left = x;
+		double added = 0;
+		Map.Entry<Double, Double> next = staircase.ceilingEntry(x);
+		while (next != null && next.getValue() >= y) {
+			// The point dominates next
+			added += (next.getKey() - left) * (top - y);
+			left = next.getKey();
+			top = next.getValue();
+			staircase.remove(next.getKey());
+			next = staircase.higherEntry(left);
+		}
+		added += ((next != null ? next.getKey() : reference[0]) - left) * (top - y);
+		staircase.put(x, y);
+		return added;
+	}
+
+	/*
+	 * Fraction of the samples of the box [minimum of the front, reference] dominated by a point of the
+	 * front, times the volume of the box
+	 * */
+	public static double monteCarlo(double[][] front, double[] reference, int samples, RandomGenerator random) {
+		final int dimension = reference.length;
+		Fronts.checkDimension(front, dimension);
+		double[] lower = reference.clone();
+		for (double[] point : front)
+			for (int i = 0; i < dimension; i++)
+				lower[i] = Math.min(lower[i], point[i]);
+		double volume = 1;
+		for (int i = 0; i < dimension; i++)
+			volume *= reference[i] - lower[i];
+		if (volume <= 0 || samples <= 0)
+			return 0;
+		double[] sample = new double[dimension];
+		int dominated = 0;
+		for (int s = 0; s < samples; s++) {
+			for (int i = 0; i < dimension; i++)
+				sample[i] = lower[i] + random.nextDouble() * (reference[i] - lower[i]);
+			for (double[] point : front) {
+				if (weaklyDominates(point, sample)) {
+					dominated++;
+					break;
+				}
+			}
+		}
+		return volume * dominated / samples;
+	}
+
+	private static boolean weaklyDominates(double[] point, double[] sample) {
+		for (int i = 0; i < point.length; i++)
+			if (point[i] > sample[i])
+				return false;
+		return true;
+	}
+}
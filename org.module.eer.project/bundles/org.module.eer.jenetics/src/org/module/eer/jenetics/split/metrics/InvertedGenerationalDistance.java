@@ -0,0 +1,39 @@
+package org.module.eer.jenetics.split.metrics;
+
+/*
+ * Inverted generational distance (IGD) of a front to a reference front (the best known front, e.g.
+ * the non-dominated points of all the runs of a model): the mean Euclidean distance of every reference
+ * point to its nearest point of the front. 0 when the front covers the reference front, lower is
+ * better. O(|reference| * |front| * objectives).
+ * */
+public final class InvertedGenerationalDistance {
+
+	private InvertedGenerationalDistance() {
+	}
+
+	public static double of(double[][] front, double[][] referenceFront) {
+		if (front.length == 0 || referenceFront.length == 0)
+			throw new IllegalArgumentException("The IGD needs a front and a reference front");
+		final int dimension = referenceFront[0].length;
+		Fronts.checkDimension(front, dimension);
+		Fronts.checkDimension(referenceFront, dimension);
+		double sum = 0;
+		for (double[] reference : referenceFront)
+			sum += Math.sqrt(nearest(reference, front));
+		return sum / referenceFront.length;
+	}
+
+	// Squared distance of the point to its nearest point of the front
+	static double nearest(double[] point, double[][] front) {
+		double nearest = Double.POSITIVE_INFINITY;
+		for (double[] other : front) {
+			double distance = 0;
+			for (int i = 0; i < point.length && distance < nearest; i++) {
+				final double d = point[i] - other[i];
+				distance += d * d;
+			}
+			nearest = Math.min(nearest, distance);
+		}
+		return nearest;
+	}
+}
@@ -0,0 +1,67 @@
+package org.module.eer.jenetics.split.metrics;
+
+/*
+ * Spread (generalized Delta of Deb, for any number of objectives) of a front: how evenly its points
+ * are distributed, from the distance of every point to its nearest neighbour in the front. With a
+ * reference front, the distance of the extreme points of the reference front (best value of every
+ * objective) to the front is added, so a front that does not reach the extremes spreads worse. 0 for
+ * a uniform front, lower is better. O(n^2 * objectives).
+ * */
+public final class Spread {
+
+	private Spread() {
+	}
+
+	// Uniformity of the front only
+	public static double of(double[][] front) {
+		return of(front, 0);
+	}
+
+	public static double of(double[][] front, double[][] referenceFront) {
+		if (referenceFront.length == 0)
+			throw new IllegalArgumentException("Empty reference front");
+		final int dimension = referenceFront[0].length;
+		Fronts.checkDimension(front, dimension);
+		Fronts.checkDimension(referenceFront, dimension);
+		double extremes = 0;
+		for (int i = 0; i < dimension; i++) {
+			double[] extreme = referenceFront[0];
+			for (double[] point : referenceFront)
+				if (point[i] < extreme[i])
+					extreme = point;
+			extremes += Math.sqrt(InvertedGenerationalDistance.nearest(extreme, front));
+		}
+		return of(front, extremes);
+	}
+
+	private static double of(double[][] front, double extremes) {
+		if (front.length == 0)
+			throw new IllegalArgumentException("Empty front");
+		final int size = front.length;
+		double[] distances = new double[size];
+		double mean = 0;
+		if (size > 1) {
+			for (int p = 0; p < size; p++) {
+				double nearest = Double.POSITIVE_INFINITY;
+				for (int q = 0; q < size; q++) {
+					if (q == p)
+						continue;
+					double distance = 0;
+					for (int i = 0; i < front[p].length; i++) {
+						final double d = front[p][i] - front[q][i];
+						distance += d * d;
+					}
+					nearest = Math.min(nearest, distance);
+				}
+				distances[p] = Math.sqrt(nearest);
+				mean += distances[p];
+			}
+			mean /= size;
+		}
+		double deviation = 0;
+		for (double distance : distances)
+			deviation += Math.abs(distance - mean);
+		final double denominator = extremes + size * mean;
+		return denominator == 0 ? 0 : (extremes + deviation) / denominator;
+	}
+}
@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -16,6 +17,9 @@ import org.apache.commons.csv.CSVPrinter;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.module.eer.jenetics.config.utils.EdgeWeights;
+import org.module.eer.jenetics.config.utils.ModuleGraph;
+import org.module.eer.jenetics.split.engine.SplitBudget;
 import org.module.eer.jenetics.split.impl.CompareModuleEERJenetics2;
 import org.module.eer.mm.moduleeer.EntityType;
 import org.module.eer.mm.moduleeer.MEERModel;
@@ -36,34 +40,38 @@ public class BatchExecuteJsonDirectEntities {
 	private static CSVPrinter printer;
 	private static CompareModuleEERJenetics2 nsga;
 	private static Gson gson = new Gson();
+	// Weights of the kinds of edges, null keeps the unweighted graph. The first argument sets them:
+	// "generalization,relation,aggregation,procedureAccess", e.g. "2,1,1,0.5"
+	private static EdgeWeights edgeWeights = null;
+	// Wall-clock budget of the split of every model, null for no limit
+	private static Duration modelTimeLimit = null;
+	// Cancelled by typing "T": the current model keeps the fronts found so far and the batch stops
+	private static final SplitBudget batch = SplitBudget.unlimited();
 
 	public static void main(String[] args) {
 
 		int start = 0;
+		if (args.length > 0)
+			edgeWeights = parseEdgeWeights(args[0]);
 
-		new Thread(new Runnable() {
+		Thread terminate = new Thread(new Runnable() {
 
 			@Override
 			public void run() {
 				Scanner in = new Scanner(System.in);
-				while (true) {
+				while (in.hasNextLine()) {
 					String read = in.nextLine();
 					if (read.equals("T")) {
-						try {
-							printer.flush();
-							printer.close();
-							System.out.println("terminated sucessfully!!!");
-						} catch (IOException e) {
-							// TODO Auto-generated catch block
-							e.printStackTrace();
-							System.out.println("terminated with error!!!");
-						} finally {
-							System.exit(0);
-						}
+						// The current model stops with the fronts so far, its stats are written
+						batch.cancel();
+						System.out.println("terminating after the current model...");
+						return;
 					}
 				}
 			}
-		}).start();
+		});
+		terminate.setDaemon(true);
+		terminate.start();
 
 		try {
 			csvFile = new File("C:\\Users\\hadid\\OneDrive\\Desktop\\University\\02 February\\statsJson.csv");
@@ -77,6 +85,7 @@ public class BatchExecuteJsonDirectEntities {
 		}
 
 		nsga = new CompareModuleEERJenetics2();
+		nsga.setEdgeWeights(edgeWeights);
 
 		// Input and output directories
 		String inputDirectory = "C:\\Users\\hadid\\Downloads\\ModelsJson\\Ecore";
@@ -89,7 +98,7 @@ public class BatchExecuteJsonDirectEntities {
 		// Process each Ecore file in the input directory
 		List<File> jsonFiles = processModuleEERfiles(inputDirectory);
 
-		for (int i = start; i < jsonFiles.size(); i++) {
+		for (int i = start; i < jsonFiles.size() && batch.isCancelled() == false; i++) {
 			System.out.println("Progress " + i + " / " + jsonFiles.size());
 			loadJson(jsonFiles.get(i), i);
 		}
@@ -97,12 +106,22 @@ public class BatchExecuteJsonDirectEntities {
 		try {
 			printer.flush();
 			printer.close();
+			if (batch.isCancelled() == true)
+				System.out.println("terminated sucessfully!!!");
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
 	}
 
+	private static EdgeWeights parseEdgeWeights(String weights) {
+		String[] values = weights.split(",");
+		if (values.length != 4)
+			throw new IllegalArgumentException("Expected generalization,relation,aggregation,procedureAccess weights: " + weights);
+		return EdgeWeights.of(Float.parseFloat(values[0].trim()), Float.parseFloat(values[1].trim()),
+				Float.parseFloat(values[2].trim()), Float.parseFloat(values[3].trim()));
+	}
+
 	private static List<File> processModuleEERfiles(String inputDirectoryPath) {
 
 		File inputDirectory = new File(inputDirectoryPath);
@@ -130,14 +149,17 @@ public class BatchExecuteJsonDirectEntities {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
-		boolean[][] edges = new boolean[json.getEntities().size()][json.getEntities().size()];
+		ModuleGraph.Builder edges = ModuleGraph.builder(json.getEntities().size());
 		Module module = readModuleeerModel(json, edges);
 		List<ModularizableElement> elements = module.getModularizableElements();
-		List<List<Result>> models = nsga.splitModules2(module, edges);
+		// The graph is built once per model and shared by all the runs
+		List<List<Result>> models = nsga.splitModules2(module,
+				edgeWeights == null ? edges.build() : edges.build(edgeWeights),
+				modelTimeLimit == null ? batch : batch.withTimeLimit(modelTimeLimit));
 		writeStats(modelIndex, models, file.getName().replace(".json", ""));
 	}
 
-	private static Module readModuleeerModel(JsonER json, boolean[][] edges) {
+	private static Module readModuleeerModel(JsonER json, ModuleGraph.Builder edges) {
 		ModuleeerFactory fac = ModuleeerFactory.eINSTANCE;
 		Module module = fac.createModule();
 		Map<String, Integer> entityMap = new HashMap<>();
@@ -150,14 +172,12 @@ public class BatchExecuteJsonDirectEntities {
 		for (Generalization g : json.getGeneralizations()) {
 			int child = entityMap.get(g.getChild().getName());
 			int parent = entityMap.get(g.getParent().getName());
-			edges[child][parent] = true;
-			edges[parent][child] = true;
+			edges.addEdge(child, parent, EdgeWeights.GENERALIZATION);
 		}
 		for (Relation r : json.getRelations()) {
 			int a = entityMap.get(r.getA().getName());
 			int b = entityMap.get(r.getB().getName());
-			edges[a][b] = true;
-			edges[b][a] = true;
+			edges.addEdge(a, b, EdgeWeights.RELATION);
 		}
 		return module;
 	}